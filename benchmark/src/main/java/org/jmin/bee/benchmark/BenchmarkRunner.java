@@ -0,0 +1,62 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * run benchmark suites at a list of thread counts
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.jmin.bee.benchmark.BenchmarkRunner [threads] [include regex]
+ *   threads: thread count list,default:1,2,4 ... (2 * cpu cores)
+ *   include regex: benchmark name pattern,default: all suites in this package
+ * </pre>
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class BenchmarkRunner {
+	public static void main(String[] args) throws RunnerException {
+		int[] threadCounts = (args.length > 0) ? parseThreadCounts(args[0]) : defaultThreadCounts();
+		String include = (args.length > 1) ? args[1] : "org.jmin.bee.benchmark.*";
+
+		for (int threads : threadCounts) {
+			Options options = new OptionsBuilder()
+					.include(include)
+					.threads(threads)
+					.build();
+			new Runner(options).run();
+		}
+	}
+
+	private static int[] parseThreadCounts(String value) {
+		String[] items = value.split(",");
+		int[] counts = new int[items.length];
+		for (int i = 0; i < items.length; i++)
+			counts[i] = Integer.parseInt(items[i].trim());
+		return counts;
+	}
+
+	private static int[] defaultThreadCounts() {
+		int max = Runtime.getRuntime().availableProcessors() * 2;
+		int size = 1;
+		for (int n = 1; n < max; n *= 2)
+			size++;
+
+		int[] counts = new int[size];
+		for (int i = 0, n = 1; i < size; i++, n *= 2)
+			counts[i] = Math.min(n, max);
+		return counts;
+	}
+}
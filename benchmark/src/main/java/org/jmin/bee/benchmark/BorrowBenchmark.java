@@ -0,0 +1,75 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.jmin.bee.BeeDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * borrow/return hot path: ConnectionPool.getConnection() and ProxyConnection.close()
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BorrowBenchmark {
+	@Param({ "ConnectionPool", "ConnectionPool2" })
+	public String poolClass;
+
+	@Param({ "false", "true" })
+	public boolean fairMode;
+
+	/**
+	 * a small pool makes borrowers wait,then released connections are
+	 * transfered to them through fair or compete TransferPolicy
+	 */
+	@Param({ "10", "2" })
+	public int poolMaxSize;
+
+	private BeeDataSource dataSource;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		dataSource = DataSourceUtil.createDataSource(poolClass, fairMode, poolMaxSize, 0);
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		dataSource.close();
+	}
+
+	@Benchmark
+	public Connection borrowAndReturn() throws SQLException {
+		Connection con = dataSource.getConnection();
+		con.close();
+		return con;
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+
+/**
+ * create benchmark data sources on stub driver
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class DataSourceUtil {
+	public static final String POOL_PACKAGE = "org.jmin.bee.pool.";
+
+	public static BeeDataSourceConfig createConfig(String poolClass, boolean fairMode, int poolMaxSize, int statementCacheSize) {
+		BeeDataSourceConfig config = createConfig(StubDriver.class.getName(), StubDriver.URL, poolClass, fairMode, poolMaxSize, statementCacheSize);
+		config.setPoolInitSize(poolMaxSize);
+		return config;
+	}
+
+	public static BeeDataSourceConfig createConfig(String driver, String url, String poolClass, boolean fairMode, int poolMaxSize, int statementCacheSize) {
+		BeeDataSourceConfig config = new BeeDataSourceConfig(driver, url, "stub", "stub");
+		config.setConnectionPoolClassName(poolClass.indexOf('.') > 0 ? poolClass : POOL_PACKAGE + poolClass);
+		config.setFairMode(fairMode);
+		config.setPoolMaxSize(poolMaxSize);
+		config.setPreparedStatementCacheSize(statementCacheSize);
+		config.setBorrowerMaxWaitTime(30000);
+		return config;
+	}
+
+	public static BeeDataSource createDataSource(String poolClass, boolean fairMode, int poolMaxSize, int statementCacheSize) {
+		return new BeeDataSource(createConfig(poolClass, fairMode, poolMaxSize, statementCacheSize));
+	}
+}
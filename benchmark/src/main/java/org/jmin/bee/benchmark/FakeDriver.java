@@ -0,0 +1,125 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency injecting JDBC driver,simulate a remote database without database.
+ *
+ * <pre>
+ * url format: jdbc:fake:key=value;key=value
+ *
+ * connectDelay     latency to create a connection,default:fixed:0
+ * queryDelay       latency of statement execute methods,default:fixed:0
+ * connectFailRate  probability(0-1) of failure on connect,default:0
+ * queryFailRate    probability(0-1) of failure on execute,default:0
+ *
+ * example: jdbc:fake:connectDelay=uniform:20:50;queryDelay=pareto:1:1.5;queryFailRate=0.001
+ * </pre>
+ *
+ * latency format see {@link LatencyDistribution}
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class FakeDriver extends StubDriver {
+	public static final String URL = "jdbc:fake:";
+	private static final ConcurrentHashMap<String, FakeProfile> profileMap = new ConcurrentHashMap<String, FakeProfile>();
+
+	static {
+		try {
+			DriverManager.registerDriver(new FakeDriver());
+		} catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public Connection connect(String url, Properties info) throws SQLException {
+		if (!acceptsURL(url))
+			return null;
+
+		FakeProfile profile = getProfile(url);
+		profile.connectDelay.delay();
+		if (profile.connectFailRate > 0 && ThreadLocalRandom.current().nextDouble() < profile.connectFailRate)
+			throw new SQLTransientConnectionException("Fake connect failure");
+		return (Connection) createStub(Connection.class, new FakeHandler(Connection.class, profile));
+	}
+
+	public boolean acceptsURL(String url) throws SQLException {
+		return url != null && url.startsWith(URL);
+	}
+
+	static FakeProfile getProfile(String url) {
+		FakeProfile profile = profileMap.get(url);
+		if (profile == null) {
+			profile = new FakeProfile(url.substring(URL.length()));
+			FakeProfile existed = profileMap.putIfAbsent(url, profile);
+			if (existed != null)
+				profile = existed;
+		}
+		return profile;
+	}
+
+	/**
+	 * latency and failure setting parsed from url
+	 */
+	static final class FakeProfile {
+		final LatencyDistribution connectDelay;
+		final LatencyDistribution queryDelay;
+		final double connectFailRate;
+		final double queryFailRate;
+
+		FakeProfile(String settings) {
+			Properties properties = new Properties();
+			for (String item : settings.split(";")) {
+				int index = item.indexOf('=');
+				if (index > 0)
+					properties.setProperty(item.substring(0, index).trim(), item.substring(index + 1).trim());
+			}
+			this.connectDelay = LatencyDistribution.parse(properties.getProperty("connectDelay"));
+			this.queryDelay = LatencyDistribution.parse(properties.getProperty("queryDelay"));
+			this.connectFailRate = Double.parseDouble(properties.getProperty("connectFailRate", "0"));
+			this.queryFailRate = Double.parseDouble(properties.getProperty("queryFailRate", "0"));
+		}
+	}
+
+	/**
+	 * add latency and failure to statement execute methods
+	 */
+	static final class FakeHandler extends StubHandler {
+		private final FakeProfile profile;
+
+		FakeHandler(Class<?> type, FakeProfile profile) {
+			super(type);
+			this.profile = profile;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().startsWith("execute")) {
+				profile.queryDelay.delay();
+				if (profile.queryFailRate > 0 && ThreadLocalRandom.current().nextDouble() < profile.queryFailRate)
+					throw new SQLException("Fake query failure");
+			}
+			return super.invoke(proxy, method, args);
+		}
+
+		protected Object createChild(Class<?> childType) {
+			return createStub(childType, new FakeHandler(childType, profile));
+		}
+	}
+}
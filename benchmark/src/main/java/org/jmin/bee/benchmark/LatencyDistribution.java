@@ -0,0 +1,97 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * latency distribution for fake driver,values in milliseconds
+ *
+ * <pre>
+ * fixed:10          always 10ms
+ * uniform:5:20      between 5ms and 20ms
+ * exp:10            exponential,mean 10ms
+ * pareto:2:1.5      pareto(scale 2ms,shape 1.5),heavy tail
+ * </pre>
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class LatencyDistribution {
+	public static final LatencyDistribution NONE = new LatencyDistribution("fixed", 0, 0, "fixed:0");
+
+	private final String type;
+	private final double value1;
+	private final double value2;
+	private final String spec;
+
+	private LatencyDistribution(String type, double value1, double value2, String spec) {
+		this.type = type;
+		this.value1 = value1;
+		this.value2 = value2;
+		this.spec = spec;
+	}
+
+	public static LatencyDistribution parse(String spec) {
+		if (spec == null || spec.trim().length() == 0)
+			return NONE;
+
+		String[] items = spec.trim().split(":");
+		String type = items[0].toLowerCase();
+		double value1 = items.length > 1 ? Double.parseDouble(items[1]) : 0;
+		double value2 = items.length > 2 ? Double.parseDouble(items[2]) : 0;
+
+		if (type.equals("fixed") || type.equals("exp")) {
+			if (items.length != 2)
+				throw new IllegalArgumentException("Error latency format:" + spec);
+		} else if (type.equals("uniform") || type.equals("pareto")) {
+			if (items.length != 3)
+				throw new IllegalArgumentException("Error latency format:" + spec);
+		} else {
+			throw new IllegalArgumentException("Unknown latency type:" + spec);
+		}
+		return new LatencyDistribution(type, value1, value2, spec);
+	}
+
+	/**
+	 * @return next random latency in nanoseconds
+	 */
+	public long nextNanos() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		double millis;
+		if (type.equals("fixed")) {
+			millis = value1;
+		} else if (type.equals("uniform")) {
+			millis = value1 + (value2 - value1) * random.nextDouble();
+		} else if (type.equals("exp")) {
+			millis = -value1 * Math.log(1 - random.nextDouble());
+		} else {
+			millis = value1 / Math.pow(1 - random.nextDouble(), 1 / value2);
+		}
+		return (long) (millis * 1000000);
+	}
+
+	/**
+	 * block current thread for a random latency
+	 */
+	public void delay() {
+		long nanos = nextNanos();
+		long deadline = System.nanoTime() + nanos;
+		while (nanos > 0) {
+			LockSupport.parkNanos(nanos);
+			nanos = deadline - System.nanoTime();
+		}
+	}
+
+	public String toString() {
+		return spec;
+	}
+}
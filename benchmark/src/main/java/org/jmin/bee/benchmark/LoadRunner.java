@@ -0,0 +1,220 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+
+/**
+ * Macro load generator: (threads x iterations) borrow and query on fake
+ * driver,then print latency percentiles of each pool.
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.jmin.bee.benchmark.LoadRunner [key=value ...]
+ *
+ * threads              concurrent borrower threads,default:1000
+ * iterations           borrow times of each thread,default:1000
+ * poolMaxSize          default:10
+ * borrowerMaxWaitTime  milliseconds,default:30000
+ * statementCacheSize   default:10
+ * pools                default:ConnectionPool,ConnectionPool2
+ * asyncCreate          create connections in background threads,default:false
+ * url                  fake driver url,default:jdbc:fake:connectDelay=fixed:5;queryDelay=exp:1
+ * </pre>
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class LoadRunner {
+	private static final String SQL = "select * from user where id=?";
+
+	public static void main(String[] args) throws Exception {
+		Properties properties = new Properties();
+		for (String arg : args) {
+			int index = arg.indexOf('=');
+			if (index > 0)
+				properties.setProperty(arg.substring(0, index), arg.substring(index + 1));
+		}
+
+		int threads = Integer.parseInt(properties.getProperty("threads", "1000"));
+		int iterations = Integer.parseInt(properties.getProperty("iterations", "1000"));
+		int poolMaxSize = Integer.parseInt(properties.getProperty("poolMaxSize", "10"));
+		long maxWait = Long.parseLong(properties.getProperty("borrowerMaxWaitTime", "30000"));
+		int cacheSize = Integer.parseInt(properties.getProperty("statementCacheSize", "10"));
+		String url = properties.getProperty("url", FakeDriver.URL + "connectDelay=fixed:5;queryDelay=exp:1");
+		String[] pools = properties.getProperty("pools", "ConnectionPool,ConnectionPool2").split(",");
+		boolean asyncCreate = Boolean.parseBoolean(properties.getProperty("asyncCreate", "false"));
+
+		System.out.println("threads:" + threads + ",iterations:" + iterations + ",poolMaxSize:" + poolMaxSize
+				+ ",borrowerMaxWaitTime:" + maxWait + ",url:" + url);
+
+		for (String pool : pools) {
+			for (boolean fairMode : new boolean[] { true, false }) {
+				BeeDataSourceConfig config = DataSourceUtil.createConfig(FakeDriver.class.getName(), url, pool.trim(), fairMode, poolMaxSize, cacheSize);
+				config.setBorrowerMaxWaitTime(maxWait);
+				config.setAsyncCreateConnection(asyncCreate);
+				BeeDataSource dataSource = new BeeDataSource(config);
+				try {
+					String name = pool.trim() + (fairMode ? "_Fair" : "_Compete");
+					run(name, dataSource, threads, iterations);
+				} finally {
+					dataSource.close();
+				}
+			}
+		}
+	}
+
+	private static void run(String name, BeeDataSource dataSource, int threads, int iterations) throws InterruptedException {
+		CountDownLatch startLatch = new CountDownLatch(1);
+		CountDownLatch endLatch = new CountDownLatch(threads);
+		LoadThread[] loadThreads = new LoadThread[threads];
+		for (int i = 0; i < threads; i++) {
+			loadThreads[i] = new LoadThread(dataSource, iterations, startLatch, endLatch);
+			loadThreads[i].start();
+		}
+
+		long begin = System.nanoTime();
+		startLatch.countDown();
+		endLatch.await();
+		long elapsed = System.nanoTime() - begin;
+
+		LatencyRecorder borrowRecorder = new LatencyRecorder(threads * iterations);
+		LatencyRecorder queryRecorder = new LatencyRecorder(threads * iterations);
+		for (LoadThread thread : loadThreads) {
+			borrowRecorder.addAll(thread.borrowTimes, thread.borrowCount, thread.borrowFailCount);
+			queryRecorder.addAll(thread.queryTimes, thread.queryCount, thread.queryFailCount);
+		}
+
+		System.out.println();
+		System.out.println(name + ",elapsed(ms):" + elapsed / 1000000);
+		System.out.println(LatencyRecorder.header());
+		System.out.println(borrowRecorder.report("borrow"));
+		System.out.println(queryRecorder.report("query"));
+	}
+
+	/**
+	 * borrow thread,records latency in nanoseconds
+	 */
+	static final class LoadThread extends Thread {
+		private final BeeDataSource dataSource;
+		private final int iterations;
+		private final CountDownLatch startLatch;
+		private final CountDownLatch endLatch;
+
+		final long[] borrowTimes;
+		final long[] queryTimes;
+		int borrowCount;
+		int queryCount;
+		int borrowFailCount;
+		int queryFailCount;
+
+		LoadThread(BeeDataSource dataSource, int iterations, CountDownLatch startLatch, CountDownLatch endLatch) {
+			this.dataSource = dataSource;
+			this.iterations = iterations;
+			this.startLatch = startLatch;
+			this.endLatch = endLatch;
+			this.borrowTimes = new long[iterations];
+			this.queryTimes = new long[iterations];
+			this.setDaemon(true);
+		}
+
+		public void run() {
+			try {
+				startLatch.await();
+				for (int i = 0; i < iterations; i++) {
+					Connection con = null;
+					long begin = System.nanoTime();
+					try {
+						con = dataSource.getConnection();
+					} catch (SQLException e) {
+						borrowFailCount++;
+						continue;
+					}
+
+					long borrowed = System.nanoTime();
+					borrowTimes[borrowCount++] = borrowed - begin;
+					try {
+						PreparedStatement ps = con.prepareStatement(SQL);
+						ps.setInt(1, i);
+						ResultSet rs = ps.executeQuery();
+						rs.close();
+						ps.close();
+						queryTimes[queryCount++] = System.nanoTime() - borrowed;
+					} catch (SQLException e) {
+						queryFailCount++;
+					} finally {
+						try {
+							con.close();
+						} catch (SQLException e) {
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+			} finally {
+				endLatch.countDown();
+			}
+		}
+	}
+
+	/**
+	 * merge latency samples and compute percentiles
+	 */
+	static final class LatencyRecorder {
+		private final long[] samples;
+		private int size;
+		private int failCount;
+
+		LatencyRecorder(int capacity) {
+			this.samples = new long[capacity];
+		}
+
+		void addAll(long[] values, int count, int fails) {
+			System.arraycopy(values, 0, samples, size, count);
+			size += count;
+			failCount += fails;
+		}
+
+		static String header() {
+			return String.format("%-8s %10s %8s %10s %10s %10s %10s %10s %10s %10s", "type", "count", "fail",
+					"min(ms)", "avg(ms)", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+		}
+
+		String report(String type) {
+			if (size == 0)
+				return String.format("%-8s %10d %8d", type, size, failCount);
+
+			Arrays.sort(samples, 0, size);
+			long total = 0;
+			for (int i = 0; i < size; i++)
+				total += samples[i];
+
+			return String.format("%-8s %10d %8d %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f %10.3f", type, size, failCount,
+					millis(samples[0]), millis(total / size), millis(percentile(0.50)), millis(percentile(0.90)),
+					millis(percentile(0.99)), millis(percentile(0.999)), millis(samples[size - 1]));
+		}
+
+		private long percentile(double rate) {
+			int index = (int) Math.ceil(rate * size) - 1;
+			return samples[Math.max(0, Math.min(index, size - 1))];
+		}
+
+		private static double millis(long nanos) {
+			return nanos / 1000000D;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * pool array scan(step2 of getConnection) with different scan strategies,
+ * each operation holds more connections than borrower recently used list,so
+ * every operation scans pool array. CAS failure rate is printed at trial end.
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanBenchmark {
+	private static final int HOLD_SIZE = 4;
+
+	@Param({ BeeDataSourceConfig.SCAN_SEQUENTIAL, BeeDataSourceConfig.SCAN_THREAD, BeeDataSourceConfig.SCAN_RANDOM, BeeDataSourceConfig.SCAN_LIFO })
+	public String scanStrategy;
+
+	@Param({ "64" })
+	public int poolMaxSize;
+
+	private BeeDataSource dataSource;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		BeeDataSourceConfig config = DataSourceUtil.createConfig("ConnectionPool", false, poolMaxSize, 0);
+		config.setConnectionScanStrategy(scanStrategy);
+		dataSource = new BeeDataSource(config);
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		Map<String, Long> statistics = dataSource.getBorrowStatistics();
+		long scans = statistics.get("ThreadLocalMissCount");
+		long casFails = statistics.get("ScanCasFailCount");
+		System.out.println();
+		System.out.println(scanStrategy + ",scans:" + scans + ",cas fails:" + casFails + ",cas fails per scan:"
+				+ (scans == 0 ? 0 : (double) casFails / scans));
+		dataSource.close();
+	}
+
+	@Benchmark
+	public Connection borrowAndReturn() throws SQLException {
+		Connection[] cons = new Connection[HOLD_SIZE];
+		for (int i = 0; i < HOLD_SIZE; i++)
+			cons[i] = dataSource.getConnection();
+		for (int i = 0; i < HOLD_SIZE; i++)
+			cons[i].close();
+		return cons[0];
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.pool.StatementCache;
+import org.jmin.bee.pool.StatementPsCacheKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * prepareStatement through StatementCache: hit(same SQL) and miss(cycle of
+ * SQL texts larger than cache size,LRU never hits).
+ * 
+ * prepareStatement(String) is keyed by SQL text,prepareStatementHitWithKey
+ * goes through StatementPsCacheKey for comparison,cacheLookup* measure the
+ * two key types on cache only(run with '-prof gc' for allocation per op)
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class PoolState {
+		@Param({ "10" })
+		public int statementCacheSize;
+
+		@Param({ "64" })
+		public int poolMaxSize;
+
+		BeeDataSource dataSource;
+		String[] missSQLs;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			dataSource = DataSourceUtil.createDataSource("ConnectionPool", false, poolMaxSize, statementCacheSize);
+			missSQLs = new String[statementCacheSize * 4 + 1];
+			for (int i = 0; i < missSQLs.length; i++)
+				missSQLs[i] = "select * from t where id=? and c" + i + "=?";
+		}
+
+		@TearDown(Level.Trial)
+		public void teardown() {
+			dataSource.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ConnectionState {
+		Connection connection;
+		String[] missSQLs;
+		int missIndex;
+
+		@Setup(Level.Trial)
+		public void setup(PoolState pool) throws SQLException {
+			connection = pool.dataSource.getConnection();
+			missSQLs = pool.missSQLs;
+		}
+
+		@TearDown(Level.Trial)
+		public void teardown() throws SQLException {
+			connection.close();
+		}
+	}
+
+	@Benchmark
+	public PreparedStatement prepareStatementHit(ConnectionState state) throws SQLException {
+		PreparedStatement ps = state.connection.prepareStatement("select * from t where id=?");
+		ps.close();
+		return ps;
+	}
+
+	@State(Scope.Thread)
+	public static class CacheState {
+		final String sql = "select * from t where id=?";
+		StatementCache cache;
+
+		@Setup(Level.Trial)
+		public void setup(PoolState pool) {
+			cache = new StatementCache(pool.statementCacheSize);
+			for (int i = 0; i < pool.statementCacheSize - 2; i++) {
+				cache.putStatement(pool.missSQLs[i], null);
+				cache.putStatement(new StatementPsCacheKey(pool.missSQLs[i]), null);
+			}
+			cache.putStatement(sql, null);
+			cache.putStatement(new StatementPsCacheKey(sql), null);
+		}
+	}
+
+	@Benchmark
+	public PreparedStatement prepareStatementHitWithKey(ConnectionState state) throws SQLException {
+		PreparedStatement ps = state.connection.prepareStatement("select * from t where id=?", Statement.NO_GENERATED_KEYS);
+		ps.close();
+		return ps;
+	}
+
+	@Benchmark
+	public PreparedStatement cacheLookupSQLKey(CacheState state) {
+		return state.cache.getStatement(state.sql);
+	}
+
+	@Benchmark
+	public PreparedStatement cacheLookupPsCacheKey(CacheState state) {
+		return state.cache.getStatement(new StatementPsCacheKey(state.sql));
+	}
+
+	@Benchmark
+	public PreparedStatement prepareStatementMiss(ConnectionState state) throws SQLException {
+		String[] sqls = state.missSQLs;
+		int index = state.missIndex;
+		state.missIndex = (index + 1 == sqls.length) ? 0 : index + 1;
+		PreparedStatement ps = state.connection.prepareStatement(sqls[index]);
+		ps.close();
+		return ps;
+	}
+}
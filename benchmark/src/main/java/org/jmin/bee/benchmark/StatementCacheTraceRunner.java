@@ -0,0 +1,158 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import org.jmin.bee.pool.StatementCache;
+
+/**
+ * Trace driven hit rate of statement cache,LRU vs W-TinyLFU,replay a SQL text
+ * trace on a single StatementCache(as one connection does).
+ *
+ * Default trace is synthetic: OLTP statements drawn from a zipf distributed
+ * hot set,a report scan over many distinct one-shot SQL texts is inserted
+ * periodically.
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.jmin.bee.benchmark.StatementCacheTraceRunner [key=value ...]
+ *
+ * cacheSizes      statement cache sizes,default:10,20,50
+ * requests        trace length,default:1000000
+ * hotSize         distinct OLTP SQL texts,default:40
+ * zipf            skew of OLTP SQL,default:0.9
+ * scanInterval    requests between two report scans,default:2000
+ * scanLength      distinct SQL texts of a report scan,default:200
+ * seed            random seed,default:1
+ * file            trace file(one SQL text per line),replace synthetic trace
+ * adaptive        adaptive size bounds(min:max),cache sizes are initial sizes,
+ *                 final sizes are printed after hit rates
+ * </pre>
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class StatementCacheTraceRunner {
+	private static final PreparedStatement DUMMY_STATEMENT = (PreparedStatement) Proxy.newProxyInstance(
+			StatementCacheTraceRunner.class.getClassLoader(), new Class[] { PreparedStatement.class }, new InvocationHandler() {
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					return null;
+				}
+			});
+
+	public static void main(String[] args) throws Exception {
+		Properties properties = new Properties();
+		for (String arg : args) {
+			int index = arg.indexOf('=');
+			if (index > 0)
+				properties.setProperty(arg.substring(0, index), arg.substring(index + 1));
+		}
+
+		String file = properties.getProperty("file");
+		String[] trace;
+		if (file != null) {
+			trace = readTrace(file);
+			System.out.println("trace file:" + file + ",requests:" + trace.length);
+		} else {
+			int requests = Integer.parseInt(properties.getProperty("requests", "1000000"));
+			int hotSize = Integer.parseInt(properties.getProperty("hotSize", "40"));
+			double zipf = Double.parseDouble(properties.getProperty("zipf", "0.9"));
+			int scanInterval = Integer.parseInt(properties.getProperty("scanInterval", "2000"));
+			int scanLength = Integer.parseInt(properties.getProperty("scanLength", "200"));
+			long seed = Long.parseLong(properties.getProperty("seed", "1"));
+			trace = createTrace(requests, hotSize, zipf, scanInterval, scanLength, seed);
+			System.out.println("requests:" + requests + ",hotSize:" + hotSize + ",zipf:" + zipf + ",scanInterval:"
+					+ scanInterval + ",scanLength:" + scanLength);
+		}
+
+		String[] cacheSizes = properties.getProperty("cacheSizes", "10,20,50").split(",");
+		String adaptive = properties.getProperty("adaptive");
+		int[] bounds = null;
+		if (adaptive != null) {
+			String[] items = adaptive.split(":");
+			bounds = new int[] { Integer.parseInt(items[0].trim()), Integer.parseInt(items[1].trim()) };
+			System.out.println("adaptive bounds:" + bounds[0] + "-" + bounds[1]);
+		}
+
+		System.out.println(String.format("%-10s %-16s %-16s", "cacheSize", "lru", "tinylfu"));
+		for (String cacheSize : cacheSizes) {
+			int size = Integer.parseInt(cacheSize.trim());
+			StatementCache lruCache = new StatementCache(size, false);
+			StatementCache tinyLFUCache = new StatementCache(size, true);
+			if (bounds != null) {
+				lruCache.setAdaptiveBounds(bounds[0], bounds[1]);
+				tinyLFUCache.setAdaptiveBounds(bounds[0], bounds[1]);
+			}
+			System.out.println(String.format("%-10d %-16s %-16s", size, replay(lruCache, trace, bounds != null), replay(tinyLFUCache, trace, bounds != null)));
+		}
+	}
+
+	private static String replay(StatementCache cache, String[] trace, boolean adaptive) {
+		for (String sql : trace) {
+			if (cache.getStatement(sql) == null)
+				cache.putStatement(sql, DUMMY_STATEMENT);
+		}
+		String hitRate = String.format("%.2f%%", (double) cache.getHitCount() / trace.length * 100);
+		return adaptive ? hitRate + "(" + cache.maxSize() + ")" : hitRate;
+	}
+
+	private static String[] createTrace(int requests, int hotSize, double zipf, int scanInterval, int scanLength, long seed) {
+		String[] hotSQL = new String[hotSize];
+		double[] cumulative = new double[hotSize];
+		double total = 0;
+		for (int i = 0; i < hotSize; i++) {
+			hotSQL[i] = "select * from order_" + i + " where id=?";
+			total += 1 / Math.pow(i + 1, zipf);
+			cumulative[i] = total;
+		}
+
+		Random random = new Random(seed);
+		String[] trace = new String[requests];
+		int reportIndex = 0;
+		int oltpCount = 0;
+		for (int i = 0; i < requests;) {
+			if (scanInterval > 0 && oltpCount == scanInterval) {
+				for (int j = 0; j < scanLength && i < requests; j++)
+					trace[i++] = "select sum(amount) from report_" + (reportIndex++) + " where day=?";
+				oltpCount = 0;
+			} else {
+				int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+				trace[i++] = hotSQL[index < 0 ? Math.min(-index - 1, hotSize - 1) : index];
+				oltpCount++;
+			}
+		}
+		return trace;
+	}
+
+	private static String[] readTrace(String file) throws Exception {
+		List<String> sqlList = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().length() > 0)
+					sqlList.add(line.trim().intern());
+			}
+		} finally {
+			reader.close();
+		}
+		return sqlList.toArray(new String[sqlList.size()]);
+	}
+}
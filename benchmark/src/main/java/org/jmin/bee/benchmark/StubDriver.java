@@ -0,0 +1,154 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * In-process JDBC driver for benchmark,all JDBC objects are dynamic proxies
+ * which do nothing,so measured time is spent in pool only.
+ *
+ * url format: jdbc:stub
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class StubDriver implements Driver {
+	public static final String URL = "jdbc:stub";
+	private static final ClassLoader loader = StubDriver.class.getClassLoader();
+
+	static {
+		try {
+			DriverManager.registerDriver(new StubDriver());
+		} catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public Connection connect(String url, Properties info) throws SQLException {
+		if (!acceptsURL(url))
+			return null;
+		return (Connection) createStub(Connection.class);
+	}
+	public boolean acceptsURL(String url) throws SQLException {
+		return url != null && url.startsWith(URL);
+	}
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+		return new DriverPropertyInfo[0];
+	}
+	public int getMajorVersion() {
+		return 1;
+	}
+	public int getMinorVersion() {
+		return 0;
+	}
+	public boolean jdbcCompliant() {
+		return false;
+	}
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	static Object createStub(Class<?> type) {
+		return createStub(type, new StubHandler(type));
+	}
+
+	static Object createStub(Class<?> type, StubHandler handler) {
+		return Proxy.newProxyInstance(loader, new Class[] { type }, handler);
+	}
+
+	/**
+	 * answer JDBC calls with stub objects or default values
+	 */
+	static class StubHandler implements InvocationHandler {
+		protected final Class<?> type;
+		private boolean autoCommit = true;
+		private boolean closed;
+
+		StubHandler(Class<?> type) {
+			this.type = type;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			Class<?> returnType = method.getReturnType();
+
+			if (name.equals("equals"))
+				return proxy == args[0];
+			if (name.equals("hashCode"))
+				return System.identityHashCode(proxy);
+			if (name.equals("toString"))
+				return "Stub" + type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+			if (name.equals("close")) {
+				closed = true;
+				return null;
+			}
+			if (name.equals("isClosed"))
+				return closed;
+			if (name.equals("isValid"))
+				return !closed;
+			if (name.equals("getAutoCommit"))
+				return autoCommit;
+			if (name.equals("setAutoCommit")) {
+				autoCommit = (Boolean) args[0];
+				return null;
+			}
+			if (name.equals("getTransactionIsolation"))
+				return Connection.TRANSACTION_READ_COMMITTED;
+
+			if (returnType == Statement.class || returnType == PreparedStatement.class
+					|| returnType == CallableStatement.class || returnType == ResultSet.class)
+				return createChild(returnType);
+			return defaultValue(returnType);
+		}
+
+		/**
+		 * create stub object returned from a JDBC call,sub class can override it to
+		 * create objects with its own handler
+		 */
+		protected Object createChild(Class<?> childType) {
+			return createStub(childType);
+		}
+	}
+
+	static Object defaultValue(Class<?> type) {
+		if (!type.isPrimitive() || type == void.class)
+			return null;
+		if (type == boolean.class)
+			return Boolean.FALSE;
+		if (type == long.class)
+			return Long.valueOf(0);
+		if (type == double.class)
+			return Double.valueOf(0);
+		if (type == float.class)
+			return Float.valueOf(0);
+		if (type == short.class)
+			return Short.valueOf((short) 0);
+		if (type == byte.class)
+			return Byte.valueOf((byte) 0);
+		if (type == char.class)
+			return Character.valueOf((char) 0);
+		return Integer.valueOf(0);
+	}
+}
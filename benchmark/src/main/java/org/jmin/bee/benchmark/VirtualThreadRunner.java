@@ -0,0 +1,150 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+
+/**
+ * one borrow and query per virtual thread(Java 21+,created by reflection),
+ * run with virtualThreadMode off and on,print borrow latency percentiles and
+ * GC count/time of each.
+ *
+ * <pre>
+ * java -cp benchmarks.jar org.jmin.bee.benchmark.VirtualThreadRunner [key=value ...]
+ *
+ * threads              virtual threads,default:100000
+ * poolMaxSize          default:32
+ * pool                 default:ConnectionPool
+ * fairMode             default:false
+ * url                  fake driver url,default:jdbc:fake:queryDelay=fixed:1
+ * </pre>
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class VirtualThreadRunner {
+	private static final String SQL = "select * from user where id=?";
+
+	public static void main(String[] args) throws Exception {
+		Properties properties = new Properties();
+		for (String arg : args) {
+			int index = arg.indexOf('=');
+			if (index > 0)
+				properties.setProperty(arg.substring(0, index), arg.substring(index + 1));
+		}
+
+		int threads = Integer.parseInt(properties.getProperty("threads", "100000"));
+		int poolMaxSize = Integer.parseInt(properties.getProperty("poolMaxSize", "32"));
+		String pool = properties.getProperty("pool", "ConnectionPool");
+		boolean fairMode = Boolean.parseBoolean(properties.getProperty("fairMode", "false"));
+		String url = properties.getProperty("url", FakeDriver.URL + "queryDelay=fixed:1");
+
+		System.out.println("threads:" + threads + ",poolMaxSize:" + poolMaxSize + ",pool:" + pool + ",fairMode:" + fairMode + ",url:" + url);
+		for (boolean virtualThreadMode : new boolean[] { false, true }) {
+			BeeDataSourceConfig config = DataSourceUtil.createConfig(FakeDriver.class.getName(), url, pool, fairMode, poolMaxSize, 10);
+			config.setPoolInitSize(poolMaxSize);
+			config.setBorrowerMaxWaitTime(60000);
+			config.setVirtualThreadMode(virtualThreadMode);
+			BeeDataSource dataSource = new BeeDataSource(config);
+			try {
+				run("virtualThreadMode:" + virtualThreadMode, dataSource, threads);
+			} finally {
+				dataSource.close();
+			}
+		}
+	}
+
+	private static void run(String name, final BeeDataSource dataSource, int threads) throws Exception {
+		final long[] borrowTimes = new long[threads];
+		final AtomicInteger failCount = new AtomicInteger();
+		long gcCount = getGcCount();
+		long gcTime = getGcTime();
+
+		long begin = System.nanoTime();
+		ExecutorService executor = newVirtualThreadPerTaskExecutor();
+		for (int i = 0; i < threads; i++) {
+			final int index = i;
+			executor.execute(new Runnable() {
+				public void run() {
+					Connection con = null;
+					long borrowBegin = System.nanoTime();
+					try {
+						con = dataSource.getConnection();
+						borrowTimes[index] = System.nanoTime() - borrowBegin;
+						PreparedStatement ps = con.prepareStatement(SQL);
+						ps.setInt(1, index);
+						ps.executeQuery().close();
+						ps.close();
+					} catch (SQLException e) {
+						failCount.incrementAndGet();
+						borrowTimes[index] = -1;
+					} finally {
+						if (con != null) {
+							try {
+								con.close();
+							} catch (SQLException e) {
+							}
+						}
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.HOURS);
+		long elapsed = System.nanoTime() - begin;
+
+		long[] samples = new long[threads];
+		int count = 0;
+		for (long time : borrowTimes) {
+			if (time >= 0)
+				samples[count++] = time;
+		}
+		LoadRunner.LatencyRecorder recorder = new LoadRunner.LatencyRecorder(threads);
+		recorder.addAll(samples, count, failCount.get());
+
+		System.out.println();
+		System.out.println(name + ",elapsed(ms):" + elapsed / 1000000 + ",gc count:" + (getGcCount() - gcCount) + ",gc time(ms):" + (getGcTime() - gcTime));
+		System.out.println(LoadRunner.LatencyRecorder.header());
+		System.out.println(recorder.report("borrow"));
+	}
+
+	private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+		try {
+			return (ExecutorService) java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("Virtual threads require Java 21+");
+		}
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, bean.getCollectionCount());
+		return count;
+	}
+
+	private static long getGcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+			time += Math.max(0, bean.getCollectionTime());
+		return time;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * waiter queue of ConnectionPool2 under overload: 'waiters' borrowers are
+ * queued,each operation is one timed out waiter(offer then cancel) and one
+ * release(poll head waiter,which waits again at tail).
+ *
+ * compare WaitQueue with LinkedBlockingQueue(remove by O(n) scan under lock)
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaitQueueBenchmark {
+	@Param({ "WaitQueue", "LinkedBlockingQueue" })
+	public String queueType;
+
+	@Param({ "10", "1000", "10000" })
+	public int waiters;
+
+	private WaitQueue<Object> waitQueue;
+	private LinkedBlockingQueue<Object> blockingQueue;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		waitQueue = new WaitQueue<Object>();
+		blockingQueue = new LinkedBlockingQueue<Object>();
+		for (int i = 0; i < waiters; i++) {
+			waitQueue.offer(new Object());
+			blockingQueue.offer(new Object());
+		}
+	}
+
+	@Benchmark
+	public Object timeoutAndRelease() {
+		Object waiter = new Object();
+		if ("WaitQueue".equals(queueType)) {
+			waitQueue.cancel(waitQueue.offer(waiter), waiter);
+			Object released = waitQueue.poll();
+			if (released != null)
+				waitQueue.offer(released);
+			return released;
+		} else {
+			blockingQueue.offer(waiter);
+			blockingQueue.remove(waiter);
+			Object released = blockingQueue.poll();
+			if (released != null)
+				blockingQueue.offer(released);
+			return released;
+		}
+	}
+}
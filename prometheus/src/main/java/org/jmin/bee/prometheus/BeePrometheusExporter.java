@@ -0,0 +1,275 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.prometheus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.jmin.bee.pool.BeePoolMXBean;
+import org.jmin.bee.pool.ConnectionPool;
+import org.jmin.bee.pool.PoolHousekeeper;
+import org.jmin.bee.pool.util.LatencyHistogram;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serve metrics of all pools in JVM with Prometheus text format(version
+ * 0.0.4) at path '/metrics',each pool is labeled by its pool name.
+ *
+ * <pre>
+ * BeePrometheusExporter exporter = BeePrometheusExporter.start(9400);
+ * ...
+ * exporter.stop();
+ * </pre>
+ *
+ * scrapes are rendered into one reused buffer,values are written without
+ * creating strings.
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class BeePrometheusExporter implements HttpHandler {
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final int POOL_MAX_SIZE = 0;
+	private static final int TOTAL_CONNECTIONS = 1;
+	private static final int IDLE_CONNECTIONS = 2;
+	private static final int ACTIVE_CONNECTIONS = 3;
+	private static final int WAITING_BORROWERS = 4;
+	private static final int THREAD_LOCAL_HIT = 5;
+	private static final int SCAN_HIT = 6;
+	private static final int CREATE_HIT = 7;
+	private static final int WAIT_HIT = 8;
+	private static final int TIMEOUT = 9;
+	private static final int CREATE_COUNT = 10;
+	private static final int CREATE_FAIL = 11;
+	private static final int CREATE_TIME_SUM = 12;
+	private static final int VALIDATION_COUNT = 13;
+	private static final int VALIDATION_FAIL = 14;
+	private static final int VALIDATION_TIME_SUM = 15;
+	private static final int IDLE_TIMEOUT_EVICT = 16;
+	private static final int FORCED_RECLAIM = 17;
+	private static final int LEAK_DETECTED = 18;
+	private static final int SHRINK_EVICT = 19;
+	private static final int LIFETIME_EVICT = 20;
+	private static final int STATEMENT_HIT = 21;
+	private static final int STATEMENT_MISS = 22;
+	private static final int STATEMENT_EVICTION = 23;
+
+	private final HttpServer server;
+	private final TextBuffer buffer = new TextBuffer();
+
+	private BeePrometheusExporter(HttpServer server) {
+		this.server = server;
+	}
+
+	/**
+	 * start endpoint on all interfaces
+	 */
+	public static BeePrometheusExporter start(int port) throws IOException {
+		return start(new InetSocketAddress(port));
+	}
+
+	public static BeePrometheusExporter start(InetSocketAddress address) throws IOException {
+		HttpServer server = HttpServer.create(address, 0);
+		BeePrometheusExporter exporter = new BeePrometheusExporter(server);
+		server.createContext("/metrics", exporter);
+		server.start();
+		return exporter;
+	}
+
+	/**
+	 * @return bound address(useful when started on port 0)
+	 */
+	public InetSocketAddress getAddress() {
+		return this.server.getAddress();
+	}
+
+	public void stop() {
+		this.server.stop(0);
+	}
+
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			synchronized (this.buffer) {
+				this.buffer.reset();
+				render(PoolHousekeeper.housekeeper.getPools(), this.buffer);
+				exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+				exchange.sendResponseHeaders(200, this.buffer.size());
+				OutputStream out = exchange.getResponseBody();
+				this.buffer.writeTo(out);
+				out.flush();
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * render metrics of pools,families first,then pools
+	 */
+	static void render(List<ConnectionPool> pools, TextBuffer buffer) {
+		family(buffer, pools, "beecp_pool_max_size", "gauge", "Max connection size of pool", null, POOL_MAX_SIZE);
+		family(buffer, pools, "beecp_connections", "gauge", "Connection size of pool", null, TOTAL_CONNECTIONS);
+		family(buffer, pools, "beecp_connections_idle", "gauge", "Idle connection size of pool", null, IDLE_CONNECTIONS);
+		family(buffer, pools, "beecp_connections_active", "gauge", "Borrowed connection size of pool", null, ACTIVE_CONNECTIONS);
+		family(buffer, pools, "beecp_borrowers_waiting", "gauge", "Borrowers waiting for a released connection", null, WAITING_BORROWERS);
+
+		header(buffer, "beecp_borrow_total", "counter", "Borrows by path which got the connection");
+		samples(buffer, pools, "beecp_borrow_total", "path=\"thread_local\"", THREAD_LOCAL_HIT);
+		samples(buffer, pools, "beecp_borrow_total", "path=\"scan\"", SCAN_HIT);
+		samples(buffer, pools, "beecp_borrow_total", "path=\"create\"", CREATE_HIT);
+		samples(buffer, pools, "beecp_borrow_total", "path=\"wait\"", WAIT_HIT);
+		family(buffer, pools, "beecp_borrow_timeout_total", "counter", "Borrows failed by waiting timeout", null, TIMEOUT);
+
+		for (int i = 0; i < 2; i++) {
+			String name = i == 0 ? "beecp_borrow_wait_seconds" : "beecp_connection_hold_seconds";
+			header(buffer, name, "histogram", i == 0 ? "Time to get a connection" : "Time of connection borrowed");
+			for (int j = 0; j < pools.size(); j++) {
+				ConnectionPool pool = pools.get(j);
+				histogram(buffer, name, pool, i == 0 ? pool.getBorrowWaitTimeHistogram() : pool.getHoldTimeHistogram(),
+						i == 0 ? pool.getBorrowWaitTimeSum() : pool.getHoldTimeSum());
+			}
+		}
+
+		family(buffer, pools, "beecp_connection_create_total", "counter", "Connections created", null, CREATE_COUNT);
+		family(buffer, pools, "beecp_connection_create_fail_total", "counter", "Connection creation failures", null, CREATE_FAIL);
+		family(buffer, pools, "beecp_connection_create_seconds_total", "counter", "Total time of connection creation", null, CREATE_TIME_SUM);
+		family(buffer, pools, "beecp_validation_total", "counter", "Connection validations", null, VALIDATION_COUNT);
+		family(buffer, pools, "beecp_validation_fail_total", "counter", "Connection validation failures", null, VALIDATION_FAIL);
+		family(buffer, pools, "beecp_validation_seconds_total", "counter", "Total time of connection validation", null, VALIDATION_TIME_SUM);
+
+		header(buffer, "beecp_connection_evict_total", "counter", "Connections closed by pool");
+		samples(buffer, pools, "beecp_connection_evict_total", "reason=\"idle_timeout\"", IDLE_TIMEOUT_EVICT);
+		samples(buffer, pools, "beecp_connection_evict_total", "reason=\"forced_reclaim\"", FORCED_RECLAIM);
+		samples(buffer, pools, "beecp_connection_evict_total", "reason=\"shrink\"", SHRINK_EVICT);
+		samples(buffer, pools, "beecp_connection_evict_total", "reason=\"lifetime\"", LIFETIME_EVICT);
+		header(buffer, "beecp_statement_cache_total", "counter", "Statement cache lookups");
+		samples(buffer, pools, "beecp_statement_cache_total", "result=\"hit\"", STATEMENT_HIT);
+		samples(buffer, pools, "beecp_statement_cache_total", "result=\"miss\"", STATEMENT_MISS);
+		family(buffer, pools, "beecp_statement_cache_eviction_total", "counter", "Statements evicted from cache", null, STATEMENT_EVICTION);
+		family(buffer, pools, "beecp_connection_leak_total", "counter", "Connection leaks detected", null, LEAK_DETECTED);
+	}
+
+	private static void family(TextBuffer buffer, List<ConnectionPool> pools, String name, String type, String help, String labels, int metric) {
+		header(buffer, name, type, help);
+		samples(buffer, pools, name, labels, metric);
+	}
+
+	private static void header(TextBuffer buffer, String name, String type, String help) {
+		buffer.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		buffer.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void samples(TextBuffer buffer, List<ConnectionPool> pools, String name, String labels, int metric) {
+		for (int i = 0; i < pools.size(); i++) {// indexed loop,no iterator
+			ConnectionPool pool = pools.get(i);
+			sampleName(buffer, name, null, pool, labels).append(' ');
+			if (metric == CREATE_TIME_SUM || metric == VALIDATION_TIME_SUM)
+				buffer.appendSeconds(value(pool, metric));
+			else
+				buffer.append(value(pool, metric));
+			buffer.append('\n');
+		}
+	}
+
+	private static TextBuffer sampleName(TextBuffer buffer, String name, String suffix, BeePoolMXBean pool, String labels) {
+		buffer.append(name);
+		if (suffix != null)
+			buffer.append(suffix);
+		buffer.append("{pool=\"").appendLabelValue(pool.getPoolName()).append('"');
+		if (labels != null)
+			buffer.append(',').append(labels);
+		return buffer.append('}');
+	}
+
+	/**
+	 * cumulative buckets with upper bound in seconds,overflow bucket is +Inf
+	 */
+	private static void histogram(TextBuffer buffer, String name, BeePoolMXBean pool, long[] buckets, long sumMicros) {
+		long count = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			count += buckets[i];
+			long bound = LatencyHistogram.bucketUpperBound(i);
+			buffer.append(name).append("_bucket{pool=\"").appendLabelValue(pool.getPoolName()).append("\",le=\"");
+			if (bound == Long.MAX_VALUE)// overflow bucket
+				buffer.append("+Inf");
+			else
+				buffer.appendSeconds(bound);
+			buffer.append("\"} ").append(count).append('\n');
+		}
+		sampleName(buffer, name, "_sum", pool, null).append(' ').appendSeconds(sumMicros).append('\n');
+		sampleName(buffer, name, "_count", pool, null).append(' ').append(count).append('\n');
+	}
+
+	private static long value(BeePoolMXBean pool, int metric) {
+		switch (metric) {
+		case POOL_MAX_SIZE:
+			return pool.getPoolMaxSize();
+		case TOTAL_CONNECTIONS:
+			return pool.getTotalConnections();
+		case IDLE_CONNECTIONS:
+			return pool.getIdleConnections();
+		case ACTIVE_CONNECTIONS:
+			return pool.getActiveConnections();
+		case WAITING_BORROWERS:
+			return pool.getWaitingBorrowers();
+		case THREAD_LOCAL_HIT:
+			return pool.getThreadLocalHitCount();
+		case SCAN_HIT:
+			return pool.getScanHitCount();
+		case CREATE_HIT:
+			return pool.getCreateHitCount();
+		case WAIT_HIT:
+			return pool.getWaitHitCount();
+		case TIMEOUT:
+			return pool.getTimeoutCount();
+		case CREATE_COUNT:
+			return pool.getCreateCount();
+		case CREATE_FAIL:
+			return pool.getCreateFailCount();
+		case CREATE_TIME_SUM:
+			return pool.getCreateTimeSum();
+		case VALIDATION_COUNT:
+			return pool.getValidationCount();
+		case VALIDATION_FAIL:
+			return pool.getValidationFailCount();
+		case VALIDATION_TIME_SUM:
+			return pool.getValidationTimeSum();
+		case IDLE_TIMEOUT_EVICT:
+			return pool.getIdleTimeoutEvictCount();
+		case FORCED_RECLAIM:
+			return pool.getForcedReclaimCount();
+		case LEAK_DETECTED:
+			return pool.getLeakDetectedCount();
+		case SHRINK_EVICT:
+			return pool.getShrinkEvictCount();
+		case LIFETIME_EVICT:
+			return pool.getLifetimeEvictCount();
+		case STATEMENT_HIT:
+			return pool.getStatementCacheHitCount();
+		case STATEMENT_MISS:
+			return pool.getStatementCacheMissCount();
+		case STATEMENT_EVICTION:
+			return pool.getStatementCacheEvictionCount();
+		default:
+			return 0;
+		}
+	}
+}
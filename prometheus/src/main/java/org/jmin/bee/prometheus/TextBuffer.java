@@ -0,0 +1,117 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.prometheus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Growable ASCII byte buffer,reused between scrapes,numbers are written
+ * digit by digit without creating strings.
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+final class TextBuffer {
+	private static final long MICROS_PER_SECOND = 1000000L;
+	private byte[] bytes = new byte[8192];
+	private final byte[] digits = new byte[20];
+	private int size;
+
+	public int size() {
+		return size;
+	}
+
+	public void reset() {
+		this.size = 0;
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(this.bytes, 0, this.size);
+	}
+
+	public TextBuffer append(char c) {
+		this.ensureCapacity(1);
+		this.bytes[this.size++] = (byte) c;
+		return this;
+	}
+
+	/**
+	 * append a string of ASCII characters(metric names,help text)
+	 */
+	public TextBuffer append(String text) {
+		int length = text.length();
+		this.ensureCapacity(length);
+		for (int i = 0; i < length; i++)
+			this.bytes[this.size++] = (byte) text.charAt(i);
+		return this;
+	}
+
+	/**
+	 * append label value,escape backslash,double quote and line feed,non
+	 * ASCII characters are replaced with '?'
+	 */
+	public TextBuffer appendLabelValue(String value) {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				this.append('\\').append(c);
+			} else if (c == '\n') {
+				this.append('\\').append('n');
+			} else {
+				this.append(c < 128 ? c : '?');
+			}
+		}
+		return this;
+	}
+
+	public TextBuffer append(long value) {
+		if (value == Long.MIN_VALUE)
+			return this.append("-9223372036854775808");
+		if (value < 0) {
+			this.append('-');
+			value = -value;
+		}
+
+		int index = this.digits.length;
+		do {
+			this.digits[--index] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+
+		int length = this.digits.length - index;
+		this.ensureCapacity(length);
+		System.arraycopy(this.digits, index, this.bytes, this.size, length);
+		this.size += length;
+		return this;
+	}
+
+	/**
+	 * append microseconds as seconds with six decimals
+	 */
+	public TextBuffer appendSeconds(long micros) {
+		this.append(micros / MICROS_PER_SECOND).append('.');
+		long fraction = micros % MICROS_PER_SECOND;
+		for (long unit = MICROS_PER_SECOND / 10; unit > 0; unit /= 10) {
+			this.append((char) ('0' + fraction / unit));
+			fraction %= unit;
+		}
+		return this;
+	}
+
+	private void ensureCapacity(int length) {
+		if (this.size + length > this.bytes.length) {
+			byte[] newBytes = new byte[Math.max(this.bytes.length * 2, this.size + length)];
+			System.arraycopy(this.bytes, 0, newBytes, 0, this.size);
+			this.bytes = newBytes;
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.prometheus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+import org.jmin.bee.pool.util.LatencyHistogram;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Scrape '/metrics' of an exporter started on a free local port,pool is
+ * created on a stub driver(no database)
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class BeePrometheusExporterTest {
+	private static final String POOL_NAME = "exporter-test";
+	private static final int POOL_MAX_SIZE = 4;
+	private static final long WAIT_TIME = 5000;
+	private static BeeDataSource dataSource;
+	private static BeePrometheusExporter exporter;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		BeeDataSourceConfig config = new BeeDataSourceConfig(StubDriver.class.getName(), StubDriver.URL, "user", "password");
+		config.setPoolName(POOL_NAME);
+		config.setPoolInitSize(2);
+		config.setPoolMaxSize(POOL_MAX_SIZE);
+		dataSource = new BeeDataSource(config);
+		for (int i = 0; i < 3; i++)
+			dataSource.getConnection().close();
+
+		exporter = BeePrometheusExporter.start(0);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		if (exporter != null)
+			exporter.stop();
+		if (dataSource != null)
+			dataSource.close();
+	}
+
+	@Test
+	public void testFamiliesAndLabels() throws Exception {
+		String text = scrape();
+		assertTrue(text.contains("# TYPE beecp_pool_max_size gauge\n"));
+		assertTrue(text.contains("beecp_pool_max_size{pool=\"" + POOL_NAME + "\"} " + POOL_MAX_SIZE + "\n"));
+		assertTrue(text.contains("# TYPE beecp_connections gauge\n"));
+		assertTrue(text.contains("# TYPE beecp_borrow_total counter\n"));
+		assertTrue(text.contains("beecp_borrow_total{pool=\"" + POOL_NAME + "\",path=\"thread_local\"} "));
+		assertTrue(text.contains("beecp_borrow_total{pool=\"" + POOL_NAME + "\",path=\"scan\"} "));
+		assertTrue(text.contains("beecp_connection_evict_total{pool=\"" + POOL_NAME + "\",reason=\"idle_timeout\"} "));
+		assertTrue(text.contains("beecp_statement_cache_total{pool=\"" + POOL_NAME + "\",result=\"hit\"} "));
+		assertTrue(text.contains("# TYPE beecp_borrow_wait_seconds histogram\n"));
+		assertTrue(text.contains("# TYPE beecp_connection_hold_seconds histogram\n"));
+	}
+
+	@Test
+	public void testWaitingBorrowers() throws Exception {
+		List<Connection> conList = new ArrayList<Connection>();
+		CompletableFuture<Connection> future = null;
+		try {
+			for (int i = 0; i < POOL_MAX_SIZE; i++)
+				conList.add(dataSource.getConnection());
+			future = dataSource.getConnectionAsync(WAIT_TIME);// blocked until a connection released
+			assertTrue(scrape().contains("beecp_borrowers_waiting{pool=\"" + POOL_NAME + "\"} 1\n"));
+		} finally {
+			for (Connection con : conList)
+				con.close();
+		}
+		future.get(WAIT_TIME, TimeUnit.MILLISECONDS).close();
+		assertTrue(scrape().contains("beecp_borrowers_waiting{pool=\"" + POOL_NAME + "\"} 0\n"));
+	}
+
+	@Test
+	public void testHistogramBuckets() throws Exception {
+		String text = scrape();
+		String prefix = "beecp_borrow_wait_seconds_bucket{pool=\"" + POOL_NAME + "\",le=\"";
+		List<String> bucketLines = new ArrayList<String>();
+		String countLine = null;
+		for (String line : text.split("\n")) {
+			if (line.startsWith(prefix))
+				bucketLines.add(line);
+			else if (line.startsWith("beecp_borrow_wait_seconds_count{pool=\"" + POOL_NAME + "\"}"))
+				countLine = line;
+		}
+		assertEquals(LatencyHistogram.BUCKET_SIZE, bucketLines.size());
+		assertTrue(bucketLines.get(0).startsWith(prefix + "0.000001\"}"));
+		assertTrue(bucketLines.get(bucketLines.size() - 1).startsWith(prefix + "+Inf\"}"));
+
+		double lastBound = -1;
+		long lastCount = 0;
+		for (int i = 0; i < bucketLines.size(); i++) {
+			String line = bucketLines.get(i);
+			String bound = line.substring(prefix.length(), line.indexOf('"', prefix.length()));
+			long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+			if (i < bucketLines.size() - 1) {
+				double value = Double.parseDouble(bound);
+				assertTrue(value > lastBound);
+				lastBound = value;
+			}
+			assertTrue(count >= lastCount);// cumulative
+			lastCount = count;
+		}
+		assertEquals(Long.parseLong(countLine.substring(countLine.lastIndexOf(' ') + 1)), lastCount);
+		assertTrue(lastCount >= 3);
+	}
+
+	@Test
+	public void testBucketUpperBoundInclusive() {
+		// 'le' is less or equal:a value equal to a bound is counted in that bucket
+		for (int bucket = 1; bucket < LatencyHistogram.BUCKET_SIZE - 1; bucket++) {
+			long bound = LatencyHistogram.bucketUpperBound(bucket);
+			assertEquals(bucket, LatencyHistogram.bucketOf(bound));
+			assertEquals(bucket + 1, LatencyHistogram.bucketOf(bound + 1));
+		}
+		assertEquals(0, LatencyHistogram.bucketOf(0));
+		assertEquals(0, LatencyHistogram.bucketOf(1));
+
+		// overflow bucket:unbounded,same as +Inf
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.BUCKET_SIZE - 1));
+		assertEquals(LatencyHistogram.BUCKET_SIZE - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+	}
+
+	private static String scrape() throws Exception {
+		URL url = new URL("http://127.0.0.1:" + exporter.getAddress().getPort() + "/metrics");
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try {
+			assertEquals(200, connection.getResponseCode());
+			assertEquals(BeePrometheusExporter.CONTENT_TYPE, connection.getContentType());
+			InputStream in = connection.getInputStream();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] bytes = new byte[4096];
+			int length;
+			while ((length = in.read(bytes)) != -1)
+				out.write(bytes, 0, length);
+			in.close();
+			return new String(out.toByteArray(), "UTF-8");
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * driver of stub connections,all methods return defaults
+	 */
+	public static final class StubDriver implements Driver {
+		static final String URL = "jdbc:stub:prometheus";
+
+		static {
+			try {
+				DriverManager.registerDriver(new StubDriver());
+			} catch (SQLException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		public Connection connect(String url, Properties info) {
+			if (!this.acceptsURL(url))
+				return null;
+			return (Connection) stub(Connection.class);
+		}
+
+		private static Object stub(final Class<?> type) {
+			return Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class[] { type }, new InvocationHandler() {
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					String name = method.getName();
+					if (name.equals("hashCode"))
+						return System.identityHashCode(proxy);
+					if (name.equals("equals"))
+						return proxy == args[0];
+					Class<?> returnType = method.getReturnType();
+					if (returnType == boolean.class)
+						return name.equals("isValid") || name.equals("getAutoCommit");
+					if (returnType == int.class)
+						return 0;
+					if (returnType == long.class)
+						return 0L;
+					if (returnType.isInterface() && returnType.getName().startsWith("java.sql."))
+						return stub(returnType);
+					return null;
+				}
+			});
+		}
+
+		public boolean acceptsURL(String url) {
+			return url != null && url.startsWith(URL);
+		}
+
+		public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+			return new DriverPropertyInfo[0];
+		}
+
+		public int getMajorVersion() {
+			return 1;
+		}
+
+		public int getMinorVersion() {
+			return 0;
+		}
+
+		public boolean jdbcCompliant() {
+			return false;
+		}
+
+		public Logger getParentLogger() {
+			return null;
+		}
+	}
+}
@@ -15,11 +15,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
+import org.jmin.bee.pool.BeePoolMXBean;
 import org.jmin.bee.pool.ConnectionPool;
 /**
  * BeeCP DataSource implementation
@@ -49,6 +53,79 @@ public final class BeeDataSource implements DataSource {
 		return this.connectionPool.getPoolSnapshot();
 	}
 	
+	/**
+	 * @return pool borrow statistics
+	 */
+	public Map<String,Long> getBorrowStatistics(){
+		return this.connectionPool.getBorrowStatistics();
+	}
+	
+	/**
+	 * @return pool wide statement cache statistics(hit/miss/eviction)
+	 */
+	public Map<String,Long> getStatementCacheStatistics(){
+		return this.connectionPool.getStatementCacheStatistics();
+	}
+	
+	/**
+	 * @return statement cache statistics of each connection
+	 */
+	public List<Map<String,Long>> getConnectionStatementCacheStatistics(){
+		return this.connectionPool.getConnectionStatementCacheStatistics();
+	}
+	
+	/**
+	 * @return SQL texts with most statement cache misses(approximate)
+	 */
+	public Map<String,Long> getTopMissSQL(int size){
+		return this.connectionPool.getTopMissSQL(size);
+	}
+	
+	/**
+	 * @return SQL texts with most statement cache evictions(approximate)
+	 */
+	public Map<String,Long> getTopEvictionSQL(int size){
+		return this.connectionPool.getTopEvictionSQL(size);
+	}
+	
+	/**
+	 * @return pool monitor(counters and histograms),same object registered to JMX
+	 */
+	public BeePoolMXBean getPoolMXBean(){
+		return this.connectionPool;
+	}
+	
+	/**
+	 * change pool max size at runtime,when shrink,connections over new size
+	 * are closed when idle or returned
+	 */
+	public void setPoolMaxSize(int poolMaxSize){
+		this.connectionPool.setPoolMaxSize(poolMaxSize);
+	}
+	
+	/**
+	 * retire all current connections(after DB failover etc.),idle ones are
+	 * closed at once,borrowed ones are closed when returned
+	 */
+	public void softEvictAll(){
+		this.connectionPool.softEvictAll();
+	}
+	
+	/**
+	 * change statement cache size at runtime,applied at next borrow of each connection
+	 */
+	public void setPreparedStatementCacheSize(int statementCacheSize){
+		this.connectionPool.setPreparedStatementCacheSize(statementCacheSize);
+	}
+	
+	/**
+	 * @return a future to wait pool initialization done(useful when pool init
+	 *         async),its result is the count of created initial connections
+	 */
+	public Future<Integer> getPoolReadyFuture() {
+		return this.connectionPool.getPoolReadyFuture();
+	}
+
 	/**
 	 * borrow a connection from pool
 	 * 
@@ -61,6 +138,27 @@ public final class BeeDataSource implements DataSource {
 		return this.connectionPool.getConnection();
 	}
 
+	/**
+	 * borrow a connection from pool without blocking caller thread
+	 * 
+	 * @return future completed with a connection when one idle or released,or
+	 *         with SQLException if pool is closed or waiting timeout
+	 */
+	public CompletableFuture<Connection> getConnectionAsync() {
+		return this.connectionPool.getConnectionAsync();
+	}
+
+	/**
+	 * borrow a connection from pool without blocking caller thread
+	 * 
+	 * @param timeout max wait time(milliseconds)
+	 * @return future completed with a connection when one idle or released,or
+	 *         with SQLException if pool is closed or waiting timeout
+	 */
+	public CompletableFuture<Connection> getConnectionAsync(long timeout) {
+		return this.connectionPool.getConnectionAsync(timeout);
+	}
+
 	/**
 	 * <p>Attempts to establish a connection with the data source that
      * this {@code DataSource} object represents.
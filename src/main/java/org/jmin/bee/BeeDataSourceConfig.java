@@ -69,16 +69,67 @@ public final class BeeDataSourceConfig {
 	 */
 	private int poolInitSize = 0;
 
+	/**
+	 * thread size to create initial connections in parallel
+	 */
+	private int poolInitThreadSize = 1;
+
+	/**
+	 * milliseconds,max time to create initial connections,zero means no limit
+	 */
+	private long poolInitTimeout = 0;
+
+	/**
+	 * if true,initial connections are created in background and data source
+	 * return before pool is full
+	 */
+	private boolean poolInitAsync;
+
 	/**
 	 * pool allow max size
 	 */
 	private int poolMaxSize = 10;
 
+	/**
+	 * min idle connections kept in pool,pool refill idle connections in background
+	 * when idle size less than it
+	 */
+	private int poolMinIdle = 0;
+
 	/**
 	 * 'PreparedStatement' cache size
 	 */
 	private int preparedStatementCacheSize = 10;
 
+	/**
+	 * eviction policy of statement cache
+	 * 
+	 * lru:     least recently used(default)
+	 * tinylfu: W-TinyLFU,a small LRU window before a frequency admitted main
+	 *          space,hot statements survive scans over many distinct SQL
+	 */
+	private String statementCachePolicy = STATEMENT_CACHE_LRU;
+
+	public static final String STATEMENT_CACHE_LRU = "lru";
+	public static final String STATEMENT_CACHE_TINYLFU = "tinylfu";
+
+	/**
+	 * if true,statement cache size of each connection grows or shrinks between
+	 * 'statementCacheMinSize' and 'statementCacheMaxSize' by observed hit rate
+	 * gain per slot,'preparedStatementCacheSize' is the initial size
+	 */
+	private boolean adaptiveStatementCache;
+
+	/**
+	 * min statement cache size of a connection in adaptive mode
+	 */
+	private int statementCacheMinSize = 1;
+
+	/**
+	 * max statement cache size of a connection in adaptive mode
+	 */
+	private int statementCacheMaxSize = 50;
+
 	/**
 	 * borrower request timeout
 	 */
@@ -90,6 +141,12 @@ public final class BeeDataSourceConfig {
 	 */
 	private long connectionIdleTimeout = 180000;
 
+	/**
+	 * milliseconds,interval of housekeeper to scan idle timeout connections,if
+	 * not set,then use a quarter of connectionIdleTimeout(min:1 second)
+	 */
+	private long idleCheckTimeInterval = 0;
+
 	/**
 	 * a test SQL to check connection active state
 	 */
@@ -105,11 +162,105 @@ public final class BeeDataSourceConfig {
 	 */
 	private String connectionPoolClassName = "org.jmin.bee.pool.ConnectionPool";
 
+	/**
+	 * connection validator implementation class name,built-in validators:
+	 * 
+	 * org.jmin.bee.pool.SQLConnectionValidator     cached prepared 'validationQuerySQL'(default)
+	 * org.jmin.bee.pool.IsValidConnectionValidator Connection.isValid(timeout)
+	 * org.jmin.bee.pool.PingConnectionValidator    driver native ping,fallback to SQL
+	 */
+	private String connectionValidatorClassName = "org.jmin.bee.pool.SQLConnectionValidator";
+
+	/**
+	 * start position of borrower to scan idle connection in pool
+	 * 
+	 * sequential: from first connection(default)
+	 * thread:     from a position bound to borrower thread
+	 * random:     from a random position
+	 * lifo:       from last(newest) connection,backward
+	 */
+	private String connectionScanStrategy = SCAN_SEQUENTIAL;
+	
+	public static final String SCAN_SEQUENTIAL = "sequential";
+	public static final String SCAN_THREAD = "thread";
+	public static final String SCAN_RANDOM = "random";
+	public static final String SCAN_LIFO = "lifo";
+
+	/**
+	 * if true,borrowers on virtual threads(Java 21+) not use thread local,take
+	 * a reused borrower from pool,platform threads still use thread local
+	 */
+	private boolean virtualThreadMode;
+
+	/**
+	 * pool name,used in logs and JMX object name,default:BeeCP-[index]
+	 */
+	private String poolName;
+
+	/**
+	 * if true,register pool to platform MBean server as BeePoolMXBean
+	 */
+	private boolean enableJmx;
+
 	/**
 	 * milliseconds,max inactive time to check active for borrower
 	 */
 	private long maxInactiveTimeToCheck = 1000;
 
+	/**
+	 * milliseconds,a borrowed connection not returned over the time is reported
+	 * as leak(with borrower stack if sampled),zero means not detect
+	 */
+	private long leakDetectionThreshold = 0;
+
+	/**
+	 * capture borrower stack for 1 in N borrows when leak detection enabled,1
+	 * means all borrows
+	 */
+	private int leakStackSampleRate = 10;
+
+	/**
+	 * milliseconds,a borrowed connection inactive over the time is closed by
+	 * pool,zero means never
+	 */
+	private long forcedReclaimTime = 600000;
+
+	/**
+	 * if true,idle connections are validated(kept alive) in background and
+	 * borrowers not validate connections
+	 */
+	private boolean backgroundValidation;
+
+	/**
+	 * milliseconds,idle time to validate a connection in background,jittered
+	 * by up to 20% for each connection
+	 */
+	private long keepaliveTime = 30000;
+
+	/**
+	 * milliseconds,max lifetime of a connection,reached connections are closed
+	 * when idle or returned,jittered by up to 10% for each connection,zero
+	 * means unlimited
+	 */
+	private long maxLifetime = 0;
+
+	/**
+	 * if true,borrower not create connection by self,pool create connections in
+	 * background threads and transfer them to waiting borrowers
+	 */
+	private boolean asyncCreateConnection;
+
+	/**
+	 * max size of background threads to create connections concurrently
+	 */
+	private int connectionCreateThreadSize = 2;
+
+	/**
+	 * extra idle connections created in background after serving waiting
+	 * borrowers,limited by pool max size
+	 */
+	private int connectionCreateAheadSize = 0;
+
 	public BeeDataSourceConfig(String driver, String url, String user, String password) {
 		this.driver = driver;
 		this.driverURL = url;
@@ -198,6 +349,35 @@ public final class BeeDataSourceConfig {
 		}
 	}
 
+	public int getPoolInitThreadSize() {
+		return poolInitThreadSize;
+	}
+
+	public void setPoolInitThreadSize(int poolInitThreadSize) {
+		if (!this.inited && poolInitThreadSize > 0) {
+			this.poolInitThreadSize = poolInitThreadSize;
+		}
+	}
+
+	public long getPoolInitTimeout() {
+		return poolInitTimeout;
+	}
+
+	public void setPoolInitTimeout(long poolInitTimeout) {
+		if (!this.inited && poolInitTimeout >= 0) {
+			this.poolInitTimeout = poolInitTimeout;
+		}
+	}
+
+	public boolean isPoolInitAsync() {
+		return poolInitAsync;
+	}
+
+	public void setPoolInitAsync(boolean poolInitAsync) {
+		if (!this.inited)
+			this.poolInitAsync = poolInitAsync;
+	}
+
 	public  int getPoolMaxSize() {
 		return poolMaxSize;
 	}
@@ -208,6 +388,16 @@ public final class BeeDataSourceConfig {
 		}
 	}
 
+	public int getPoolMinIdle() {
+		return poolMinIdle;
+	}
+
+	public void setPoolMinIdle(int poolMinIdle) {
+		if (!this.inited && poolMinIdle >= 0) {
+			this.poolMinIdle = poolMinIdle;
+		}
+	}
+
 	public  int getPreparedStatementCacheSize() {
 		return preparedStatementCacheSize;
 	}
@@ -218,6 +408,46 @@ public final class BeeDataSourceConfig {
 		}
 	}
 
+	public String getStatementCachePolicy() {
+		return statementCachePolicy;
+	}
+
+	public void setStatementCachePolicy(String statementCachePolicy) {
+		if (!this.inited && !isNull(statementCachePolicy)) {
+			this.statementCachePolicy = statementCachePolicy.trim().toLowerCase();
+		}
+	}
+
+	public boolean isAdaptiveStatementCache() {
+		return adaptiveStatementCache;
+	}
+
+	public void setAdaptiveStatementCache(boolean adaptiveStatementCache) {
+		if (!this.inited) {
+			this.adaptiveStatementCache = adaptiveStatementCache;
+		}
+	}
+
+	public int getStatementCacheMinSize() {
+		return statementCacheMinSize;
+	}
+
+	public void setStatementCacheMinSize(int statementCacheMinSize) {
+		if (!this.inited && statementCacheMinSize > 0) {
+			this.statementCacheMinSize = statementCacheMinSize;
+		}
+	}
+
+	public int getStatementCacheMaxSize() {
+		return statementCacheMaxSize;
+	}
+
+	public void setStatementCacheMaxSize(int statementCacheMaxSize) {
+		if (!this.inited && statementCacheMaxSize > 0) {
+			this.statementCacheMaxSize = statementCacheMaxSize;
+		}
+	}
+
 	public long getConnectionIdleTimeout() {
 		return connectionIdleTimeout;
 	}
@@ -228,6 +458,18 @@ public final class BeeDataSourceConfig {
 		}
 	}
 
+	public long getIdleCheckTimeInterval() {
+		if (idleCheckTimeInterval > 0)
+			return idleCheckTimeInterval;
+		return Math.max(1000, connectionIdleTimeout / 4);
+	}
+
+	public void setIdleCheckTimeInterval(long idleCheckTimeInterval) {
+		if (!this.inited && idleCheckTimeInterval > 0) {
+			this.idleCheckTimeInterval = idleCheckTimeInterval;
+		}
+	}
+
 	public long getBorrowerMaxWaitTime() {
 		return borrowerMaxWaitTime;
 	}
@@ -268,6 +510,115 @@ public final class BeeDataSourceConfig {
 		}
 	}
 
+	public String getPoolName() {
+		return poolName;
+	}
+
+	public void setPoolName(String poolName) {
+		if (!this.inited && !isNull(poolName)) {
+			this.poolName = poolName.trim();
+		}
+	}
+
+	public boolean isEnableJmx() {
+		return enableJmx;
+	}
+
+	public void setEnableJmx(boolean enableJmx) {
+		if (!this.inited) {
+			this.enableJmx = enableJmx;
+		}
+	}
+
+	public long getLeakDetectionThreshold() {
+		return leakDetectionThreshold;
+	}
+
+	public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+		if (!this.inited && leakDetectionThreshold >= 0) {
+			this.leakDetectionThreshold = leakDetectionThreshold;
+		}
+	}
+
+	public int getLeakStackSampleRate() {
+		return leakStackSampleRate;
+	}
+
+	public void setLeakStackSampleRate(int leakStackSampleRate) {
+		if (!this.inited && leakStackSampleRate > 0) {
+			this.leakStackSampleRate = leakStackSampleRate;
+		}
+	}
+
+	public long getForcedReclaimTime() {
+		return forcedReclaimTime;
+	}
+
+	public void setForcedReclaimTime(long forcedReclaimTime) {
+		if (!this.inited && forcedReclaimTime >= 0) {
+			this.forcedReclaimTime = forcedReclaimTime;
+		}
+	}
+
+	public boolean isBackgroundValidation() {
+		return backgroundValidation;
+	}
+
+	public void setBackgroundValidation(boolean backgroundValidation) {
+		if (!this.inited) {
+			this.backgroundValidation = backgroundValidation;
+		}
+	}
+
+	public long getKeepaliveTime() {
+		return keepaliveTime;
+	}
+
+	public void setKeepaliveTime(long keepaliveTime) {
+		if (!this.inited && keepaliveTime > 0) {
+			this.keepaliveTime = keepaliveTime;
+		}
+	}
+
+	public long getMaxLifetime() {
+		return maxLifetime;
+	}
+
+	public void setMaxLifetime(long maxLifetime) {
+		if (!this.inited && maxLifetime >= 0) {
+			this.maxLifetime = maxLifetime;
+		}
+	}
+
+	public boolean isAsyncCreateConnection() {
+		return asyncCreateConnection;
+	}
+
+	public void setAsyncCreateConnection(boolean asyncCreateConnection) {
+		if (!this.inited)
+			this.asyncCreateConnection = asyncCreateConnection;
+	}
+
+	public int getConnectionCreateThreadSize() {
+		return connectionCreateThreadSize;
+	}
+
+	public void setConnectionCreateThreadSize(int connectionCreateThreadSize) {
+		if (!this.inited && connectionCreateThreadSize > 0) {
+			this.connectionCreateThreadSize = connectionCreateThreadSize;
+		}
+	}
+
+	public int getConnectionCreateAheadSize() {
+		return connectionCreateAheadSize;
+	}
+
+	public void setConnectionCreateAheadSize(int connectionCreateAheadSize) {
+		if (!this.inited && connectionCreateAheadSize >= 0) {
+			this.connectionCreateAheadSize = connectionCreateAheadSize;
+		}
+	}
+
 	private void loadJdbcDriver(String driver) throws IllegalArgumentException {
 		try {
 			Class.forName(driver, true, this.getClass().getClassLoader());
@@ -276,6 +627,36 @@ public final class BeeDataSourceConfig {
 		}
 	}
 	
+	public String getConnectionScanStrategy() {
+		return connectionScanStrategy;
+	}
+
+	public void setConnectionScanStrategy(String connectionScanStrategy) {
+		if (!this.inited && !isNull(connectionScanStrategy)) {
+			this.connectionScanStrategy = connectionScanStrategy.trim().toLowerCase();
+		}
+	}
+
+	public boolean isVirtualThreadMode() {
+		return virtualThreadMode;
+	}
+
+	public void setVirtualThreadMode(boolean virtualThreadMode) {
+		if (!this.inited) {
+			this.virtualThreadMode = virtualThreadMode;
+		}
+	}
+
+	public String getConnectionValidatorClassName() {
+		return connectionValidatorClassName;
+	}
+
+	public void setConnectionValidatorClassName(String connectionValidatorClassName) {
+		if (!this.inited && !isNull(connectionValidatorClassName)) {
+			this.connectionValidatorClassName = connectionValidatorClassName.trim();
+		}
+	}
+
 	public String getConnectionPoolClassName() {
 		return connectionPoolClassName;
 	}
@@ -304,19 +685,49 @@ public final class BeeDataSourceConfig {
 			throw new IllegalArgumentException("Pool init size must be greater than zero");
 		if (this.poolInitSize > poolMaxSize)
 			throw new IllegalArgumentException("Error configeruation,pool init size must be less than pool max size");
+		if (this.poolMinIdle < 0)
+			throw new IllegalArgumentException("Pool min idle size can't be less than zero");
+		if (this.poolMinIdle > poolMaxSize)
+			throw new IllegalArgumentException("Error configeruation,pool min idle size must be less than pool max size");
+		if (this.poolInitThreadSize <= 0)
+			throw new IllegalArgumentException("Pool init thread size must be greater than zero");
+		if (this.poolInitTimeout < 0)
+			throw new IllegalArgumentException("Pool init timeout can't be less than zero");
 		if (this.connectionIdleTimeout <= 0)
 			throw new IllegalArgumentException("Connection max idle time must be greater than zero");
 		if (this.borrowerMaxWaitTime <= 0)
 			throw new IllegalArgumentException("Borrower max waiting time must be greater than zero");
 		if (this.preparedStatementCacheSize < 0)
 			throw new IllegalArgumentException("Statement cache Size must be greater than zero");
+		if (!STATEMENT_CACHE_LRU.equals(this.statementCachePolicy) && !STATEMENT_CACHE_TINYLFU.equals(this.statementCachePolicy))
+			throw new IllegalArgumentException("Unknown statement cache policy:" + this.statementCachePolicy);
+		if (this.adaptiveStatementCache) {
+			if (this.statementCacheMinSize <= 0)
+				throw new IllegalArgumentException("Statement cache min size must be greater than zero");
+			if (this.statementCacheMinSize > this.statementCacheMaxSize)
+				throw new IllegalArgumentException("Error configeruation,statement cache min size must be less than statement cache max size");
+			if (this.preparedStatementCacheSize < this.statementCacheMinSize || this.preparedStatementCacheSize > this.statementCacheMaxSize)
+				throw new IllegalArgumentException("Error configeruation,statement cache size must be between statement cache min size and max size");
+		}
+		if (this.leakDetectionThreshold < 0)
+			throw new IllegalArgumentException("Leak detection threshold can't be less than zero");
+		if (this.leakStackSampleRate <= 0)
+			throw new IllegalArgumentException("Leak stack sample rate must be greater than zero");
+		if (this.forcedReclaimTime < 0)
+			throw new IllegalArgumentException("Forced reclaim time can't be less than zero");
+		if (this.maxLifetime < 0)
+			throw new IllegalArgumentException("Connection max lifetime can't be less than zero");
+		if (this.connectionCreateThreadSize <= 0)
+			throw new IllegalArgumentException("Connection create thread size must be greater than zero");
+		if (this.connectionCreateAheadSize < 0)
+			throw new IllegalArgumentException("Connection create ahead size can't be less than zero");
+		if (!SCAN_SEQUENTIAL.equals(this.connectionScanStrategy) && !SCAN_THREAD.equals(this.connectionScanStrategy)
+				&& !SCAN_RANDOM.equals(this.connectionScanStrategy) && !SCAN_LIFO.equals(this.connectionScanStrategy))
+			throw new IllegalArgumentException("Unknown connection scan strategy:" + this.connectionScanStrategy);
 		
-		//fix issue:#1 The check of validationQuerySQL has logic problem. Chris-2019-05-01 begin
-		//if (this.validationQuerySQL != null && validationQuerySQL.trim().length() == 0) {
-		if (!isNull(this.validationQuerySQL) && !this.validationQuerySQL.trim().toLowerCase().startsWith("select "))
-		//fix issue:#1 The check of validationQuerySQL has logic problem. Chris-2019-05-01 end	
-			throw new IllegalArgumentException("connection validate SQL must start with 'select '");
-		//}
+		//validation SQL may be 'select ..','values ..',or with comment(MySQL ping),but not update
+		if (!isNull(this.validationQuerySQL) && isUpdateSQL(this.validationQuerySQL))
+			throw new IllegalArgumentException("connection validate SQL can't be a update SQL");
 
 		if (!isNull(this.userName))
 			this.jdbcProperties.put("user", this.userName);
@@ -324,6 +735,15 @@ public final class BeeDataSourceConfig {
 			this.jdbcProperties.put("password", this.password);
 	}
 
+	private boolean isUpdateSQL(String sql) {
+		String lowerSQL = sql.trim().toLowerCase();
+		for (String keyword : new String[] { "insert", "update", "delete", "merge", "drop", "truncate", "alter", "create" }) {
+			if (lowerSQL.startsWith(keyword))
+				return true;
+		}
+		return false;
+	}
+
 	private boolean isNull(String value) {
 		return (value == null || value.trim().length() == 0);
 	}
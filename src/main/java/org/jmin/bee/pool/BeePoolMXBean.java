@@ -0,0 +1,177 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.util.Map;
+
+/**
+ * Pool monitor interface,registered to platform MBean server with name
+ * 'org.jmin.bee:type=BeePool,name=[poolName]' when JMX enabled.
+ *
+ * Counters and histograms are striped and only summed when read,time values
+ * are in microseconds,percentiles are upper bounds of log2 buckets(Long.MAX_VALUE
+ * if in the overflow bucket).
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public interface BeePoolMXBean {
+
+	String getPoolName();
+
+	int getPoolMaxSize();
+
+	/**
+	 * change pool max size at runtime,connections over new size are closed
+	 * when idle or returned
+	 */
+	void setPoolMaxSize(int poolMaxSize);
+
+	int getPreparedStatementCacheSize();
+
+	/**
+	 * change statement cache size at runtime,applied at next borrow of each
+	 * connection
+	 */
+	void setPreparedStatementCacheSize(int statementCacheSize);
+
+	int getTotalConnections();
+
+	int getIdleConnections();
+
+	int getActiveConnections();
+
+	int getWaitingBorrowers();
+
+	/**
+	 * borrow hit recently used connections of borrower
+	 */
+	long getThreadLocalHitCount();
+
+	/**
+	 * borrow hit an idle connection by pool scan
+	 */
+	long getScanHitCount();
+
+	/**
+	 * borrow got a connection created by itself
+	 */
+	long getCreateHitCount();
+
+	/**
+	 * borrow got a connection transfered from release path after waiting
+	 */
+	long getWaitHitCount();
+
+	/**
+	 * borrow failed by waiting timeout
+	 */
+	long getTimeoutCount();
+
+	long getBorrowWaitTimeMean();
+
+	long getBorrowWaitTimeSum();
+
+	long getBorrowWaitTimeP50();
+
+	long getBorrowWaitTimeP99();
+
+	/**
+	 * @return count of each log2 bucket,bucket 0 holds 0-1,bucket i holds
+	 *         (2^(i-1),2^i] microseconds,last one is overflow bucket holding
+	 *         all greater values(upper bound Long.MAX_VALUE)
+	 */
+	long[] getBorrowWaitTimeHistogram();
+
+	long getHoldTimeMean();
+
+	long getHoldTimeSum();
+
+	long getHoldTimeP50();
+
+	long getHoldTimeP99();
+
+	/**
+	 * @return count of each log2 bucket,same buckets as
+	 *         {@link #getBorrowWaitTimeHistogram()}
+	 */
+	long[] getHoldTimeHistogram();
+
+	long getCreateCount();
+
+	long getCreateFailCount();
+
+	long getCreateTimeMean();
+
+	long getCreateTimeSum();
+
+	long getCreateTimeP99();
+
+	long getValidationCount();
+
+	long getValidationFailCount();
+
+	long getValidationTimeMean();
+
+	long getValidationTimeSum();
+
+	long getValidationTimeP99();
+
+	/**
+	 * idle connections closed by idle timeout
+	 */
+	long getIdleTimeoutEvictCount();
+
+	/**
+	 * borrowed connections closed by forced reclaim time
+	 */
+	long getForcedReclaimCount();
+
+	/**
+	 * connections closed after pool max size shrunk
+	 */
+	long getShrinkEvictCount();
+
+	/**
+	 * connections closed by max lifetime or soft evict
+	 */
+	long getLifetimeEvictCount();
+
+	long getStatementCacheHitCount();
+
+	long getStatementCacheMissCount();
+
+	long getStatementCacheEvictionCount();
+
+	/**
+	 * @return SQL texts with most statement cache misses(approximate:at most
+	 *         1000 texts are tracked,counts may be overestimated)
+	 */
+	Map<String, Long> getTopMissSQL(int size);
+
+	/**
+	 * @return SQL texts with most statement cache evictions(approximate:at most
+	 *         1000 texts are tracked,counts may be overestimated)
+	 */
+	Map<String, Long> getTopEvictionSQL(int size);
+
+	/**
+	 * retire all current connections,idle ones are closed at once,borrowed
+	 * ones are closed when returned
+	 */
+	void softEvictAll();
+
+	long getLeakDetectedCount();
+
+	/**
+	 * reset all counters and histograms
+	 */
+	void resetStatistics();
+}
@@ -24,19 +24,57 @@ final class Borrower {
 	public static final int STATE_WAIT_INIT     = 1;
 	public static final int STATE_WAITING       = 2;
 	public static final int STATE_TRANSFERED    = 3;
+	
+	/**
+	 * max size of recently used connections kept by borrower
+	 */
+	public static final int MAX_USED_SIZE       = 3;
 
 	private Thread borrowerThread = null;
-	private PooledConnection lastUsedConnection = null;
-	private PooledConnection transferedConnection = null;
+	private int usedSize = 0;
+	private PooledConnection[] usedConnections = new PooledConnection[MAX_USED_SIZE];//MRU order
+	private volatile PooledConnection transferedConnection = null;
+	private boolean createRequested = false;
+	private boolean pooled = false;
+	private int scanStart;
+	private int randomSeed;
 	private AtomicInteger state=new AtomicInteger(STATE_NORMAL);
 	private List<PooledConnection> badConnectionList = new LinkedList<PooledConnection>();
 	
 	public Borrower() {
 		this.borrowerThread = Thread.currentThread();
+		this.scanStart = (int) (this.borrowerThread.getId() * 0x9E3779B9L) >>> 1;//spread thread ids
+		this.randomSeed = this.scanStart | 1;
+	}
+	/**
+	 * @return scan start position bound to borrower thread(not negative)
+	 */
+	public int getScanStart() {
+		return scanStart;
+	}
+	/**
+	 * @return next random number(not negative),xorshift on borrower own seed
+	 */
+	public int nextRandom() {
+		int seed = randomSeed;
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		randomSeed = seed;
+		return seed & Integer.MAX_VALUE;
 	}
 	public Thread getThread() {
 		return borrowerThread;
 	}
+	public void setThread(Thread borrowerThread) {
+		this.borrowerThread = borrowerThread;
+	}
+	public boolean isPooled() {
+		return pooled;
+	}
+	public void setPooled(boolean pooled) {
+		this.pooled = pooled;
+	}
 	public int getState() {
 		return this.state.get();
 	}
@@ -46,15 +84,42 @@ final class Borrower {
 	public boolean compareAndSetState(int expect, int update) {
 		return this.state.compareAndSet(expect, update);
 	}
-	public PooledConnection getLastUsedConnection() {
-		return lastUsedConnection;
+	public int getUsedSize() {
+		return usedSize;
+	}
+	public PooledConnection getUsedConnection(int index) {
+		return usedConnections[index];
+	}
+	/**
+	 * put connection at first position,the least recently used one is
+	 * dropped when full
+	 */
+	public void addUsedConnection(PooledConnection pooledConnection) {
+		int index = 0;
+		while (index < usedSize && usedConnections[index] != pooledConnection)
+			index++;
+		if (index == usedSize) {
+			if (usedSize < MAX_USED_SIZE)
+				usedSize++;
+			else
+				index--;
+		}
+		System.arraycopy(usedConnections, 0, usedConnections, 1, index);
+		usedConnections[0] = pooledConnection;
 	}
-	public void setLastUsedConnection(PooledConnection lastUsedConnection) {
-		this.lastUsedConnection = lastUsedConnection;
+	public void removeUsedConnection(int index) {
+		System.arraycopy(usedConnections, index + 1, usedConnections, index, usedSize - index - 1);
+		usedConnections[--usedSize] = null;
 	}
 	public List<PooledConnection> getBadConnectionList() {
 		return badConnectionList;
 	}
+	public boolean isCreateRequested() {
+		return createRequested;
+	}
+	public void setCreateRequested(boolean createRequested) {
+		this.createRequested = createRequested;
+	}
 	public PooledConnection getTransferedConnection() {
 		return transferedConnection;
 	}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Borrower store for virtual threads(short-lived,not reuse thread local),
+ * borrower is taken on getConnection and put back after it,when store is
+ * empty then create a new one,when full then drop it.
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+final class BorrowerPool {
+	private static final int MAX_PROBE_SIZE = 8;
+	// resolved once,a static final handle is inlined by JIT(null before Java 21)
+	private static final MethodHandle isVirtualHandle = getIsVirtualHandle();
+
+	private final int mask;
+	private final AtomicReferenceArray<Borrower> slots;
+
+	public BorrowerPool(int capacity) {
+		int size = 1;
+		while (size < capacity)
+			size <<= 1;
+		this.mask = size - 1;
+		this.slots = new AtomicReferenceArray<Borrower>(size);
+	}
+
+	/**
+	 * take a borrower and bind it to current thread
+	 */
+	public Borrower take() {
+		Thread thread = Thread.currentThread();
+		int start = (int) thread.getId();
+		for (int i = 0; i < MAX_PROBE_SIZE; i++) {
+			int index = (start + i) & this.mask;
+			Borrower borrower = this.slots.get(index);
+			if (borrower != null && this.slots.compareAndSet(index, borrower, null)) {
+				borrower.setThread(thread);
+				return borrower;
+			}
+		}
+
+		Borrower borrower = new Borrower();
+		borrower.setPooled(true);
+		return borrower;
+	}
+
+	/**
+	 * put back borrower after getConnection
+	 */
+	public void release(Borrower borrower) {
+		borrower.setThread(null);
+		int start = (int) Thread.currentThread().getId();
+		for (int i = 0; i < MAX_PROBE_SIZE; i++) {
+			int index = (start + i) & this.mask;
+			if (this.slots.get(index) == null && this.slots.compareAndSet(index, null, borrower))
+				return;
+		}
+	}
+
+	/**
+	 * @return true if thread is a virtual thread(Java 21+)
+	 */
+	public static boolean isVirtualThread(Thread thread) {
+		if (isVirtualHandle == null)
+			return false;
+		try {
+			return (boolean) isVirtualHandle.invokeExact(thread);
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+
+	private static MethodHandle getIsVirtualHandle() {
+		try {
+			return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
@@ -9,30 +9,44 @@
  */
 package org.jmin.bee.pool;
 
+import java.lang.management.ManagementFactory;
 import java.lang.ref.WeakReference;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.jmin.bee.BeeDataSourceConfig;
-import org.jmin.bee.pool.util.ConnectionUtil;
 import org.jmin.bee.pool.util.SystemClock;
 
 /**
@@ -41,28 +55,69 @@ import org.jmin.bee.pool.util.SystemClock;
  * @author Chris.Liao
  * @version 1.0
  */
-public class ConnectionPool{
+public class ConnectionPool implements BeePoolMXBean{
 	// pool state
 	private final int STATE_UNINIT = 0;
 	private final int STATE_NORMAL = 1;
 	private final int STATE_CLOSED = 2;
+	// milliseconds,max time of destroy to wait borrowed connections returned,then close them
+	private static final long MAX_DESTROY_WAIT_TIME = 600000L;
+	// milliseconds,interval to top up idle connections to min idle size(not in borrow path,counting idle is a full scan)
+	private static final long MIN_IDLE_CHECK_INTERVAL = 500L;
 	private volatile int state=STATE_UNINIT;
-	private Timer connectionIdleCheckTimer;
-	private ConnectionPoolHook connectionPoolHook;
-	private boolean connecitonTestSQLIsNull;
+	private ScheduledFuture<?> idleCheckFuture;
+	private ScheduledFuture<?> keepaliveFuture;
+	private ScheduledFuture<?> leakDetectFuture;
+	private ScheduledFuture<?> minIdleFuture;
+	private final PoolHousekeeper housekeeper=PoolHousekeeper.housekeeper;
+	// run housekeeping tasks of this pool(validation may block),housekeeper thread only schedules them
+	private ThreadPoolExecutor poolWorker;
+	private ConnectionValidator connectionValidator;
 	protected final BeeDataSourceConfig poolInfo;
+	private final String poolName;
+	private ObjectName mbeanName;
+	private static final AtomicInteger poolNameIndex = new AtomicInteger(0);
 	
 	private final boolean isFairMode;
-	private final Semaphore takeSemaphore;
+	private final boolean isVirtualThreadMode;
+	private final boolean isBackgroundValidation;
+	private final BorrowerPool borrowerPool;
+	private final boolean isAsyncCreate;
+	private final int poolMinIdle;
+	private final int scanStrategy;
+	private volatile int poolMaxSize;
+	private volatile int statementCacheSize;
+	private final boolean isTinyLFUStatementCache;
+	private final boolean isAdaptiveStatementCache;
+	private final ResizableSemaphore takeSemaphore;
 	private final TransferPolicy transferPolicy;
 	private final ConnectionFactory connectionFactory;
+	private final ConnectionCreator connectionCreator;
+	private volatile SQLException createFailException;
+	private FutureTask<Integer> poolReadyFuture;
 	private final AtomicInteger conCurSize = new AtomicInteger(0);
-	private final AtomicInteger waiterSize = new AtomicInteger(0);
+	protected final AtomicInteger waiterSize = new AtomicInteger(0);
+	private final AtomicInteger asyncWaiterSize = new AtomicInteger(0);
+	private final PoolMetrics metrics = new PoolMetrics();
+	private static final int SCAN_SEQUENTIAL = 0;
+	private static final int SCAN_THREAD = 1;
+	private static final int SCAN_RANDOM = 2;
+	private static final int SCAN_LIFO = 3;
 	private final PooledConnectionArray conArray=new PooledConnectionArray();
 	private final BlockingQueue<PooledConnection> transferQueue = new SynchronousQueue<PooledConnection>(true);	
+	/**
+	 * waiter queue of subclass,created here to be ready before background
+	 * threads started in constructor release connections
+	 */
+	protected final WaitQueue<Borrower> waitQueue = new WaitQueue<Borrower>();
+	private final WaitQueue<AsyncBorrower> asyncWaitQueue = new WaitQueue<AsyncBorrower>();
 	private final ThreadLocal<WeakReference<Borrower>> borrowerThreadLocal = new ThreadLocal<WeakReference<Borrower>>();
 	
-	private final long MAX_IDLE_TIME_IN_USING = 600000L;
+	private final long forcedReclaimTime;
+	private final long maxLifetime;
+	private volatile int evictEpoch;
+	private final long leakDetectionThreshold;
+	private final int leakStackSampleRate;
 	private final SystemClock systemClock=SystemClock.clock;
 	private final TimeUnit MillSecondTimeUnit=TimeUnit.MILLISECONDS;
 	private SQLException PoolCloseStateException = new SQLException("Pool has been closed");
@@ -77,18 +132,19 @@ public class ConnectionPool{
 	public ConnectionPool(BeeDataSourceConfig poolInfo) throws SQLException {
 		if (poolInfo == null)
 			throw new SQLException("Connection info can't be null");
+		this.forcedReclaimTime = poolInfo.getForcedReclaimTime();
+		this.maxLifetime = poolInfo.getMaxLifetime();
+		this.leakDetectionThreshold = poolInfo.getLeakDetectionThreshold();
+		this.leakStackSampleRate = poolInfo.getLeakStackSampleRate();
 	 
 		if (this.state == STATE_UNINIT) {
 			poolInfo.check();
 			this.checkProxyClasss();
 			this.poolInfo = poolInfo;
 			this.poolInfo.setInited(true);
-			this.connecitonTestSQLIsNull = ConnectionUtil.isNull(poolInfo.getValidationQuerySQL());
+			this.connectionValidator = this.createConnectionValidator(poolInfo);
+			this.poolName = poolInfo.getPoolName() != null ? poolInfo.getPoolName() : "BeeCP-" + poolNameIndex.incrementAndGet();
 
-			this.connectionIdleCheckTimer = new Timer(true);
-			this.connectionIdleCheckTimer.schedule(new PooledConnectionIdleTask(this), 60000, 180000);
-			this.connectionPoolHook = new ConnectionPoolHook(this);
-			Runtime.getRuntime().addShutdownHook(this.connectionPoolHook);
 			this.state = STATE_NORMAL;
  
 			String mode = "";
@@ -101,15 +157,51 @@ public class ConnectionPool{
 			}
 			
 			this.isFairMode=poolInfo.isFairMode();
-			this.takeSemaphore=new Semaphore(this.poolInfo.getPoolMaxSize()*2,true);
+			this.isAsyncCreate=poolInfo.isAsyncCreateConnection();
+			this.poolMinIdle=poolInfo.getPoolMinIdle();
+			this.scanStrategy=this.getScanStrategy(poolInfo.getConnectionScanStrategy());
+			this.isVirtualThreadMode=poolInfo.isVirtualThreadMode();
+			this.isBackgroundValidation=poolInfo.isBackgroundValidation();
+			this.borrowerPool=this.isVirtualThreadMode?new BorrowerPool(Math.max(64,poolInfo.getPoolMaxSize()*2)):null;
+			this.poolMaxSize=poolInfo.getPoolMaxSize();
+			this.statementCacheSize=poolInfo.getPreparedStatementCacheSize();
+			this.isTinyLFUStatementCache=BeeDataSourceConfig.STATEMENT_CACHE_TINYLFU.equals(poolInfo.getStatementCachePolicy());
+			this.isAdaptiveStatementCache=poolInfo.isAdaptiveStatementCache();
+			this.takeSemaphore=new ResizableSemaphore(this.poolMaxSize*2);//compete mode only,not fair
 			this.connectionFactory = new ConnectionFactory(poolInfo.getDriverURL(),poolInfo.getJdbcProperties(),poolInfo.getJdbcConnectionDriver());
+			this.connectionCreator = new ConnectionCreator(poolInfo.getConnectionCreateThreadSize(),poolInfo.getConnectionCreateAheadSize());
 			this.createInitConnections();
-			System.out.println("BeeCP has been startup{init size:" + this.conCurSize.get() + ",max size:" + poolInfo.getPoolMaxSize() + ",mode:" + mode + "}");
+			this.fillMinIdle();
+			this.poolWorker = this.createPoolWorker();
+			this.idleCheckFuture = this.housekeeper.register(this, new PooledConnectionIdleTask(this), poolInfo.getIdleCheckTimeInterval());
+			if (this.isBackgroundValidation)
+				this.keepaliveFuture = this.housekeeper.scheduleWithFixedDelay(new PooledConnectionKeepaliveTask(this), Math.max(100, poolInfo.getKeepaliveTime() / 10));
+			if (this.leakDetectionThreshold > 0)
+				this.leakDetectFuture = this.housekeeper.scheduleWithFixedDelay(new PooledConnectionLeakTask(this), Math.max(100, this.leakDetectionThreshold / 4));
+			if (this.poolMinIdle > 0)
+				this.minIdleFuture = this.housekeeper.scheduleWithFixedDelay(new PooledConnectionMinIdleTask(this), MIN_IDLE_CHECK_INTERVAL);
+			if (poolInfo.isEnableJmx())
+				this.registerMBean();
+			System.out.println("BeeCP(" + this.poolName + ") has been startup{init size:" + this.conCurSize.get() + ",max size:" + this.poolMaxSize + ",mode:" + mode + "}");
 		} else {
 			throw new SQLException("Pool has been initialized");
 		}
 	}
 
+	private ThreadPoolExecutor createPoolWorker() {
+		final String threadName = "BeeCP(" + this.poolName + ") worker";
+		ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 15, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, threadName);
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		worker.allowCoreThreadTimeOut(true);
+		return worker;
+	}
+
 	/**
 	 * check some proxy class whether exists
 	 */
@@ -139,60 +231,515 @@ public class ConnectionPool{
 			throw PoolCloseStateException;
 	}
 	public Map<String,Integer> getPoolSnapshot(){
-		int waiterSize = this.waiterSize.get();
+		int waiterSize = this.getWaitingBorrowers();
 		int conCurSize = this.conCurSize.get();
-		int conIdleSize=0;
-		
-		for (PooledConnection pooledConnection:conArray.getArray()) {
-			if (pooledConnection.getConnectionState() == PooledConnectionState.IDLE)
-				conIdleSize++;
-		}
+		int conIdleSize = this.getIdleSize();
 		Map<String,Integer> snapshotMap = new LinkedHashMap<String,Integer>();
-		snapshotMap.put("PoolMaxSize", this.poolInfo.getPoolMaxSize());
+		snapshotMap.put("PoolMaxSize", this.poolMaxSize);
 		snapshotMap.put("ConCurSize", conCurSize);
 		snapshotMap.put("ConIdleSize", conIdleSize);
 		snapshotMap.put("WaiterSize", waiterSize);
 		return snapshotMap;
 	}
 	
+	/**
+	 * @return borrow statistics,count of each borrow path(thread local
+	 *         hit/scan/create/wait/timeout)
+	 */
+	public Map<String,Long> getBorrowStatistics(){
+		Map<String,Long> statisticsMap = new LinkedHashMap<String,Long>();
+		statisticsMap.put("ThreadLocalHitCount", this.metrics.threadLocalHitCount.sum());
+		statisticsMap.put("ThreadLocalMissCount", this.metrics.threadLocalMissCount.sum());
+		statisticsMap.put("ScanHitCount", this.metrics.scanHitCount.sum());
+		statisticsMap.put("CreateHitCount", this.metrics.createHitCount.sum());
+		statisticsMap.put("WaitHitCount", this.metrics.waitHitCount.sum());
+		statisticsMap.put("TimeoutCount", this.metrics.timeoutCount.sum());
+		statisticsMap.put("ScanCasFailCount", this.metrics.scanCasFailCount.sum());
+		statisticsMap.put("LeakDetectedCount", this.metrics.leakDetectedCount.sum());
+		return statisticsMap;
+	}
+	
+	PoolMetrics getMetrics() {
+		return this.metrics;
+	}
+	
+	/**
+	 * @return pool wide statement cache statistics
+	 */
+	public Map<String,Long> getStatementCacheStatistics(){
+		Map<String,Long> statisticsMap = new LinkedHashMap<String,Long>();
+		statisticsMap.put("HitCount", this.metrics.statementHitCount.sum());
+		statisticsMap.put("MissCount", this.metrics.statementMissCount.sum());
+		statisticsMap.put("EvictionCount", this.metrics.statementEvictionCount.sum());
+		return statisticsMap;
+	}
+	
+	/**
+	 * @return statement cache statistics of each connection in pool
+	 */
+	public List<Map<String,Long>> getConnectionStatementCacheStatistics(){
+		PooledConnection[] array = this.conArray.getArray();
+		List<Map<String,Long>> statisticsList = new ArrayList<Map<String,Long>>(array.length);
+		for (PooledConnection pooledConnection : array) {
+			StatementCache statementCache = pooledConnection.getStatementCache();
+			Map<String,Long> statisticsMap = new LinkedHashMap<String,Long>();
+			statisticsMap.put("Size", (long) statementCache.size());
+			statisticsMap.put("MaxSize", (long) statementCache.maxSize());
+			statisticsMap.put("HitCount", statementCache.getHitCount());
+			statisticsMap.put("MissCount", statementCache.getMissCount());
+			statisticsMap.put("EvictionCount", statementCache.getEvictionCount());
+			statisticsList.add(statisticsMap);
+		}
+		return statisticsList;
+	}
+	
+	/**
+	 * @return SQL texts with most statement cache misses(prepared on server),approximate
+	 */
+	public Map<String,Long> getTopMissSQL(int size){
+		return this.metrics.getTopSQL(size, false);
+	}
+	
+	/**
+	 * @return SQL texts with most statement cache evictions(cache churn),approximate
+	 */
+	public Map<String,Long> getTopEvictionSQL(int size){
+		return this.metrics.getTopSQL(size, true);
+	}
+
+	/**
+	 * register pool to platform MBean server,failure not stop pool
+	 */
+	private void registerMBean() {
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("org.jmin.bee:type=BeePool,name=" + ObjectName.quote(this.poolName));
+			mbeanServer.registerMBean(this, name);
+			this.mbeanName = name;
+		} catch (Exception e) {
+			System.out.println("BeeCP(" + this.poolName + ") failed to register MBean:" + e);
+		}
+	}
+
+	private void unregisterMBean() {
+		if (this.mbeanName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.mbeanName);
+			} catch (Exception e) {
+			}
+			this.mbeanName = null;
+		}
+	}
+
+	public String getPoolName() {
+		return this.poolName;
+	}
+
+	public int getPoolMaxSize() {
+		return this.poolMaxSize;
+	}
+
+	/**
+	 * change pool max size at runtime,when shrink,idle connections over new
+	 * size are closed at once,borrowed ones are closed when they are returned
+	 * 
+	 * @param poolMaxSize new max size,not less than pool min idle size
+	 */
+	public synchronized void setPoolMaxSize(int poolMaxSize) {
+		if (poolMaxSize <= 0)
+			throw new IllegalArgumentException("Pool max size must be greater than zero");
+		if (poolMaxSize < this.poolMinIdle)
+			throw new IllegalArgumentException("Pool max size must not be less than pool min idle size");
+
+		int oldSize = this.poolMaxSize;
+		this.poolMaxSize = poolMaxSize;
+		if (poolMaxSize > oldSize) {
+			this.takeSemaphore.release((poolMaxSize - oldSize) * 2);
+			int createSize = Math.min(this.waiterSize.get() + 1, poolMaxSize - this.conCurSize.get());
+			if (createSize > 0 && (this.existWaiting() || !this.asyncWaitQueue.isEmpty()))// create for waiters
+				this.connectionCreator.requestCreate(createSize);
+		} else if (poolMaxSize < oldSize) {
+			this.takeSemaphore.reducePermits((oldSize - poolMaxSize) * 2);
+			this.closeOversizedIdleConnections();
+		}
+		System.out.println("BeeCP(" + this.poolName + ") max size changed:" + oldSize + "->" + poolMaxSize);
+	}
+
+	public int getPreparedStatementCacheSize() {
+		return this.statementCacheSize;
+	}
+
+	/**
+	 * change statement cache size at runtime,cache of a connection is resized
+	 * at its next borrow(by borrower thread),in adaptive mode the size must be
+	 * in min/max bounds and caches adapt again from it
+	 */
+	public void setPreparedStatementCacheSize(int statementCacheSize) {
+		if (statementCacheSize < 0)
+			throw new IllegalArgumentException("Statement cache Size must be greater than zero");
+		if (this.isAdaptiveStatementCache && (statementCacheSize < poolInfo.getStatementCacheMinSize() || statementCacheSize > poolInfo.getStatementCacheMaxSize()))
+			throw new IllegalArgumentException("Statement cache size must be between statement cache min size and max size");
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * close idle connections over pool max size(after shrink)
+	 */
+	private void closeOversizedIdleConnections() {
+		LinkedList<PooledConnection> badConList = new LinkedList<PooledConnection>();
+		for (PooledConnection pooledConnection : conArray.getArray()) {
+			if (this.conCurSize.get() <= this.poolMaxSize)
+				break;
+			if (pooledConnection.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.CLOSED)) {
+				this.conCurSize.decrementAndGet();
+				this.metrics.shrinkEvictCount.increment();
+				pooledConnection.removeFromPool();
+				badConList.add(pooledConnection);
+			}
+		}
+		if (!badConList.isEmpty())
+			this.conArray.removeAll(badConList);
+	}
+
+	boolean isTinyLFUStatementCache() {
+		return isTinyLFUStatementCache;
+	}
+
+	boolean isAdaptiveStatementCache() {
+		return isAdaptiveStatementCache;
+	}
+
+	int getEvictEpoch() {
+		return this.evictEpoch;
+	}
+
+	/**
+	 * retire all current connections,idle ones are closed at once,borrowed
+	 * ones are closed when they are returned,new connections are created for
+	 * waiters and min idle
+	 */
+	public synchronized void softEvictAll() {
+		this.evictEpoch++;
+		this.closeRetiredIdleConnections();
+	}
+
+	/**
+	 * @return true if connection reached its max lifetime(jittered by up to
+	 *         10%),or created before last soft evict
+	 */
+	private boolean isRetired(PooledConnection pooledConnection) {
+		if (pooledConnection.getEvictEpoch() != this.evictEpoch)
+			return true;
+		if (this.maxLifetime > 0) {
+			long lifetime = this.maxLifetime - (long) (this.maxLifetime * 0.1 * pooledConnection.getRandomFactor());
+			return systemClock.currentTimeMillis() - pooledConnection.getCreateTime() - lifetime >= 0;
+		}
+		return false;
+	}
+
+	/**
+	 * housekeeper call the method to close retired idle connections
+	 */
+	public void closeRetiredIdleConnections() {
+		if (!this.isNormal())
+			return;
+
+		LinkedList<PooledConnection> badConList = new LinkedList<PooledConnection>();
+		for (PooledConnection pooledConnection : conArray.getArray()) {
+			if (pooledConnection.getConnectionState() == PooledConnectionState.IDLE && this.isRetired(pooledConnection)
+					&& pooledConnection.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.CLOSED)) {
+				this.conCurSize.decrementAndGet();
+				this.metrics.lifetimeEvictCount.increment();
+				pooledConnection.removeFromPool();
+				badConList.add(pooledConnection);
+			}
+		}
+		if (!badConList.isEmpty()) {
+			this.conArray.removeAll(badConList);
+			this.createForWaiters();
+		}
+	}
+
+	/**
+	 * called on release,close the connection if it is retired,then create a
+	 * new one if exists waiter
+	 * 
+	 * @return true if closed
+	 */
+	protected boolean closeIfRetired(PooledConnection pooledConnection) {
+		if (!this.isRetired(pooledConnection))
+			return false;
+
+		pooledConnection.setConnectionState(PooledConnectionState.CLOSED);
+		this.conCurSize.decrementAndGet();
+		this.metrics.lifetimeEvictCount.increment();
+		pooledConnection.removeFromPool();
+		this.conArray.removeAll(Collections.singletonList(pooledConnection));
+		this.createForWaiters();
+		return true;
+	}
+
+	/**
+	 * request creator to create a connection for waiters,or fill min idle
+	 */
+	private void createForWaiters() {
+		if (this.existWaiting() || !this.asyncWaitQueue.isEmpty())
+			this.connectionCreator.requestCreate();
+		else
+			this.fillMinIdle();
+	}
+
+	/**
+	 * called on release,close the connection if pool size is over max size
+	 * (pool shrunk at runtime)
+	 * 
+	 * @return true if closed
+	 */
+	protected boolean closeIfOversized(PooledConnection pooledConnection) {
+		int curSize;
+		while ((curSize = this.conCurSize.get()) > this.poolMaxSize) {
+			if (this.conCurSize.compareAndSet(curSize, curSize - 1)) {
+				pooledConnection.setConnectionState(PooledConnectionState.CLOSED);
+				this.metrics.shrinkEvictCount.increment();
+				pooledConnection.removeFromPool();
+				this.conArray.removeAll(Collections.singletonList(pooledConnection));
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int getTotalConnections() {
+		return this.conCurSize.get();
+	}
+
+	public int getIdleConnections() {
+		return this.getIdleSize();
+	}
+
+	public int getActiveConnections() {
+		int conUsingSize = 0;
+		for (PooledConnection pooledConnection : conArray.getArray()) {
+			if (pooledConnection.getConnectionState() == PooledConnectionState.USING)
+				conUsingSize++;
+		}
+		return conUsingSize;
+	}
+
+	public int getWaitingBorrowers() {
+		return this.waiterSize.get() + this.asyncWaiterSize.get();
+	}
+
+	public long getThreadLocalHitCount() {
+		return this.metrics.threadLocalHitCount.sum();
+	}
+
+	public long getScanHitCount() {
+		return this.metrics.scanHitCount.sum();
+	}
+
+	public long getCreateHitCount() {
+		return this.metrics.createHitCount.sum();
+	}
+
+	public long getWaitHitCount() {
+		return this.metrics.waitHitCount.sum();
+	}
+
+	public long getTimeoutCount() {
+		return this.metrics.timeoutCount.sum();
+	}
+
+	public long getBorrowWaitTimeMean() {
+		return this.metrics.borrowWaitTime.getMean();
+	}
+
+	public long getBorrowWaitTimeSum() {
+		return this.metrics.borrowWaitTime.getSum();
+	}
+
+	public long getBorrowWaitTimeP50() {
+		return this.metrics.borrowWaitTime.getPercentile(0.50);
+	}
+
+	public long getBorrowWaitTimeP99() {
+		return this.metrics.borrowWaitTime.getPercentile(0.99);
+	}
+
+	public long[] getBorrowWaitTimeHistogram() {
+		return this.metrics.borrowWaitTime.getBuckets();
+	}
+
+	public long getHoldTimeMean() {
+		return this.metrics.holdTime.getMean();
+	}
+
+	public long getHoldTimeSum() {
+		return this.metrics.holdTime.getSum();
+	}
+
+	public long getHoldTimeP50() {
+		return this.metrics.holdTime.getPercentile(0.50);
+	}
+
+	public long getHoldTimeP99() {
+		return this.metrics.holdTime.getPercentile(0.99);
+	}
+
+	public long[] getHoldTimeHistogram() {
+		return this.metrics.holdTime.getBuckets();
+	}
+
+	public long getCreateCount() {
+		return this.metrics.createTime.getCount() - this.metrics.createFailCount.sum();
+	}
+
+	public long getCreateFailCount() {
+		return this.metrics.createFailCount.sum();
+	}
+
+	public long getCreateTimeMean() {
+		return this.metrics.createTime.getMean();
+	}
+
+	public long getCreateTimeSum() {
+		return this.metrics.createTime.getSum();
+	}
+
+	public long getCreateTimeP99() {
+		return this.metrics.createTime.getPercentile(0.99);
+	}
+
+	public long getValidationCount() {
+		return this.metrics.validationTime.getCount();
+	}
+
+	public long getValidationFailCount() {
+		return this.metrics.validationFailCount.sum();
+	}
+
+	public long getValidationTimeMean() {
+		return this.metrics.validationTime.getMean();
+	}
+
+	public long getValidationTimeSum() {
+		return this.metrics.validationTime.getSum();
+	}
+
+	public long getValidationTimeP99() {
+		return this.metrics.validationTime.getPercentile(0.99);
+	}
+
+	public long getIdleTimeoutEvictCount() {
+		return this.metrics.idleTimeoutEvictCount.sum();
+	}
+
+	public long getForcedReclaimCount() {
+		return this.metrics.forcedReclaimCount.sum();
+	}
+
+	public long getShrinkEvictCount() {
+		return this.metrics.shrinkEvictCount.sum();
+	}
+
+	public long getLifetimeEvictCount() {
+		return this.metrics.lifetimeEvictCount.sum();
+	}
+
+	public long getStatementCacheHitCount() {
+		return this.metrics.statementHitCount.sum();
+	}
+
+	public long getStatementCacheMissCount() {
+		return this.metrics.statementMissCount.sum();
+	}
+
+	public long getStatementCacheEvictionCount() {
+		return this.metrics.statementEvictionCount.sum();
+	}
+
+	public long getLeakDetectedCount() {
+		return this.metrics.leakDetectedCount.sum();
+	}
+
+	public void resetStatistics() {
+		this.metrics.reset();
+	}
+	
+	private int getIdleSize() {
+		int conIdleSize = 0;
+		for (PooledConnection pooledConnection : conArray.getArray()) {
+			if (pooledConnection.getConnectionState() == PooledConnectionState.IDLE)
+				conIdleSize++;
+		}
+		return conIdleSize;
+	}
+
+	/**
+	 * if idle connections less than min idle size,then request creator to create
+	 * some idle connections in background(limited by pool max size)
+	 */
+	private void fillMinIdle() {
+		if (this.poolMinIdle > 0 && this.isNormal()) {
+			int needSize = this.poolMinIdle - this.getIdleSize() - this.connectionCreator.getRequestSize();
+			int freeSize = this.poolMaxSize - this.conCurSize.get();
+			if (needSize > freeSize)
+				needSize = freeSize;
+			if (needSize > 0)
+				this.connectionCreator.requestCreate(needSize);
+		}
+	}
+
 	/**
 	 * check connection state,when
 	 * @return if the checked connection is active then return true,otherwise false     
 	 */
 	private boolean isActivePooledConnection(PooledConnection pooledConnection) {
 		if (systemClock.currentTimeMillis()-pooledConnection.getLastActiveTime()-poolInfo.getMaxInactiveTimeToCheck()>0) {
-			final Connection connecton = pooledConnection.getPhisicConnection();
-			if (this.connecitonTestSQLIsNull) {
-				try {
-					return connecton.isValid(this.poolInfo.getValidationQueryTimeout());
-				} catch (SQLException e) {
-					return false;
-				}
-			} else {
-				Statement st = null;
-				try {
-					st = connecton.createStatement();
-					this.setsetQueryTimeout(pooledConnection,st);
-					st.execute(this.poolInfo.getValidationQuerySQL());
-					return true;
-				} catch (SQLException e) {
-					return false;
-				} finally {
-					ConnectionUtil.close(st);
-				}
-			}
+			return this.validatePooledConnection(pooledConnection);
 		}
 		return true;
 	}
+	
+	private boolean validatePooledConnection(PooledConnection pooledConnection) {
+		long begin = System.nanoTime();
+		boolean valid = this.connectionValidator.isValid(pooledConnection, this.poolInfo.getValidationQueryTimeout());
+		this.metrics.validationTime.record(System.nanoTime() - begin);
+		if (!pooledConnection.isAutoCommit())// validation query may begin a transaction
+			pooledConnection.setTransactionDirty(true);
+		if (!valid)
+			this.metrics.validationFailCount.increment();
+		return valid;
+	}
 
-	private void setsetQueryTimeout(PooledConnection pooledConnection,Statement st)throws SQLException {
-		if (pooledConnection.isSurpportSetQueryTimeout()) {
-			try {
-				st.setQueryTimeout(this.poolInfo.getValidationQueryTimeout());
-			} catch (SQLException e) {
-				pooledConnection.setSurpportSetQueryTimeout(false);
-				throw e;
-			}
+	/**
+	 * validation query of a non-autocommit connection may begin a
+	 * transaction,end it before the connection goes back to idle
+	 * 
+	 * @return false if rollback failed(connection is bad)
+	 */
+	private boolean rollbackAfterValidation(PooledConnection pooledConnection) {
+		if (pooledConnection.isAutoCommit())
+			return true;
+		try {
+			pooledConnection.getPhisicConnection().rollback();
+			pooledConnection.setTransactionDirty(false);
+			return true;
+		} catch (Throwable e) {
+			return false;
+		}
+	}
+
+	private ConnectionValidator createConnectionValidator(BeeDataSourceConfig poolInfo) throws SQLException {
+		try {
+			Class<?> validatorClass = Class.forName(poolInfo.getConnectionValidatorClassName(), true, this.getClass().getClassLoader());
+			ConnectionValidator validator = (ConnectionValidator) validatorClass.newInstance();
+			validator.init(poolInfo);
+			return validator;
+		} catch (ClassNotFoundException e) {
+			throw new SQLException("Not found connection validator class:" + poolInfo.getConnectionValidatorClassName());
+		} catch (Exception e) {
+			throw new SQLException("Failed to create connection validator:" + poolInfo.getConnectionValidatorClassName(), e);
 		}
 	}
 
@@ -204,7 +751,7 @@ public class ConnectionPool{
 	 * @return if is valid,then return true,otherwise false;
 	 */
 	private boolean checkOnBorrowed(PooledConnection poolConnection,List<PooledConnection> badConList) {
-		if (this.isActivePooledConnection(poolConnection)) {
+		if (this.isBackgroundValidation || this.isActivePooledConnection(poolConnection)) {//background mode:only state check
 			return true;
 		} else {
 			this.conCurSize.decrementAndGet();
@@ -216,31 +763,32 @@ public class ConnectionPool{
 	}
 	
 	/**
-	 * create some idle connections to pool when pool initialization
+	 * create some idle connections to pool when pool initialization,if async
+	 * mode,then create them in background and return immediately
 	 * 
 	 * @throws SQLException
 	 *             error occurred in creating connections
 	 */
 	private void createInitConnections() throws SQLException {
-		int size = this.poolInfo.getPoolInitSize();
-		ArrayList<PooledConnection> tempList = new ArrayList<PooledConnection>(size);
-		try {
-			for (int i = 0; i < size; i++) {
-				Connection con = this.connectionFactory.createConnection();
-				tempList.add(new PooledConnection(con, this.poolInfo.getPreparedStatementCacheSize(), this));
-			}
-		} catch (SQLException e) {
-			Iterator<PooledConnection> itor = tempList.iterator();
-			while (itor.hasNext()) {
-				PooledConnection selectedPooledConnection = itor.next();
-				selectedPooledConnection.setConnectionState(PooledConnectionState.CLOSED);
-				selectedPooledConnection.removeFromPool();
-				itor.remove();
-			}
-			throw e;
+		PoolInitializer initializer = new PoolInitializer(this.poolInfo.getPoolInitSize(),
+				this.poolInfo.getPoolInitThreadSize(), this.poolInfo.getPoolInitTimeout(), this.poolInfo.isPoolInitAsync());
+		this.poolReadyFuture = new FutureTask<Integer>(initializer);
+		if (this.poolInfo.isPoolInitAsync()) {
+			Thread initThread = new Thread(this.poolReadyFuture, "BeeCP pool initializer");
+			initThread.setDaemon(true);
+			initThread.start();
+		} else {
+			initializer.call();
+			this.poolReadyFuture.run();
 		}
-		this.conArray.addAll(tempList);
-		this.conCurSize.set(tempList.size());
+	}
+
+	/**
+	 * @return a future to wait pool initialization done,its result is the count
+	 *         of created initial connections
+	 */
+	public Future<Integer> getPoolReadyFuture() {
+		return this.poolReadyFuture;
 	}
 
 	/**
@@ -264,45 +812,59 @@ public class ConnectionPool{
 	 */
 	public Connection getConnection(final long maxWaitMillTime) throws SQLException {
 		this.checkPool();
+		final long beginTime=System.nanoTime();
 		boolean acquired=false;
 		Borrower borrower=null;
 		PooledConnection pooledCon=null;
 		PooledConnection tempPooledCon=null;
 		
-		WeakReference<Borrower> borrowerRef = this.borrowerThreadLocal.get();
-		if (borrowerRef != null)borrower = borrowerRef.get();
-		if (borrower == null) {
-			borrower = new Borrower();
-			this.borrowerThreadLocal.set(new WeakReference<Borrower>(borrower));
-		}
+		borrower = this.getBorrower();
 		List<PooledConnection> badConList = borrower.getBadConnectionList();
 		
 		try {
-			if ((tempPooledCon = borrower.getLastUsedConnection()) != null // step1
-					&& tempPooledCon.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.USING)) {
-				if (this.checkOnBorrowed(tempPooledCon, badConList)) {
-					pooledCon = tempPooledCon;
+			for (int i = 0; i < borrower.getUsedSize();) {// step1:recently used connections in MRU order
+				tempPooledCon = borrower.getUsedConnection(i);
+				if (tempPooledCon.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.USING)) {
+					if (this.checkOnBorrowed(tempPooledCon, badConList)) {
+						pooledCon = tempPooledCon;
+						break;
+					}
+					borrower.removeUsedConnection(i);
+				} else if (tempPooledCon.getConnectionState() == PooledConnectionState.CLOSED) {
+					borrower.removeUsedConnection(i);
 				} else {
-					borrower.setLastUsedConnection(null);
+					i++;
 				}
 			}
+			if (pooledCon != null)
+				this.metrics.threadLocalHitCount.increment();
+			else
+				this.metrics.threadLocalMissCount.increment();
 			
 			if (pooledCon == null) {// try to search one/create one
 				long timeout = maxWaitMillTime;
 				final long targetTimeoutPoint=systemClock.currentTimeMillis()+timeout;
-				try{acquired=!this.isFairMode && this.takeSemaphore.tryAcquire(timeout,MillSecondTimeUnit);}catch (InterruptedException e){}
+				try{acquired=!this.isFairMode && (this.takeSemaphore.tryAcquire() || this.takeSemaphore.tryAcquire(timeout,MillSecondTimeUnit));}catch (InterruptedException e){}
 				
 				do {
-					if ((pooledCon = this.searchOneConnection(badConList)) != null) //step2
+					if ((pooledCon = this.searchOneConnection(borrower,badConList)) != null) {//step2
+						this.metrics.scanHitCount.increment();
 						break;
-					if ((pooledCon = this.createOneConneciton()) != null)//step3
+					}
+					if (this.isAsyncCreate) {//step3
+						borrower.setCreateRequested(true);
+					} else if ((pooledCon = this.createOneConneciton()) != null) {
+						this.metrics.createHitCount.increment();
+						this.connectionCreator.requestCreateAhead();
 						break;
+					}
 					
 					if ((timeout = targetTimeoutPoint - systemClock.currentTimeMillis()) <= 0)
 						break;
 					if ((tempPooledCon = this.waitRelease(timeout, borrower)) != null
 							&& this.transferPolicy.tryCatchReleasedConnection(tempPooledCon) 
 						    && this.checkOnBorrowed(tempPooledCon, badConList)) {// step4
+							this.metrics.waitHitCount.increment();
 							pooledCon = tempPooledCon;
 							break;
 					}
@@ -310,36 +872,219 @@ public class ConnectionPool{
 			}
 		} finally {
 			if (acquired)this.takeSemaphore.release();
+			borrower.setCreateRequested(false);
 			if (!badConList.isEmpty()) {
 				this.conArray.removeAll(badConList);
 				badConList.clear();
 			}
+			if (pooledCon != null)
+				borrower.addUsedConnection(pooledCon);
+			this.releaseBorrower(borrower);
 		}
 	 
 		if (pooledCon != null) {
-			borrower.setLastUsedConnection(pooledCon);
-			ProxyConnection proxyConnection = ProxyConnectionFactory.createProxyConnection(pooledCon);
-			pooledCon.bindProxyConnection(proxyConnection);
-			pooledCon.updateLastActivityTime();
+			ProxyConnection proxyConnection = this.createProxyConnection(pooledCon);
+			this.metrics.borrowWaitTime.record(pooledCon.getBorrowNanoTime() - beginTime);
 			return proxyConnection;
 		} else if (this.isClosed())
 			throw PoolCloseStateException;
+		
+		this.metrics.timeoutCount.increment();
+		if (this.isAsyncCreate && this.createFailException != null)
+			throw this.createFailException;
 		else
 			throw ConnectionRequestTimeoutException;
 	}
 	
-	private PooledConnection searchOneConnection(List<PooledConnection> badConList) {
-		for (PooledConnection pooledConnection:this.conArray.getArray()) {
-			if (pooledConnection.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.USING)
-					&& this.checkOnBorrowed(pooledConnection, badConList)) {
-				return pooledConnection;
-			}
-		}
-		return null;
+	/**
+	 * borrow a connection without blocking caller thread
+	 * @return future completed with a connection,or with SQLException if pool closed or waiting timeout
+	 */
+	public CompletableFuture<Connection> getConnectionAsync() {
+		return this.getConnectionAsync(this.poolInfo.getBorrowerMaxWaitTime());
+	}
+	
+	/**
+	 * borrow a connection without blocking caller thread,if no idle connection
+	 * in pool,then register a callback waiter,which is completed by release
+	 * path(connections created in background also come from release path).
+	 * 
+	 * future dependent actions run in the thread releasing connection(or pool
+	 * timeout timer),use async methods with your own executor(thenApplyAsync
+	 * etc.) for long work
+	 * 
+	 * @param maxWaitMillTime max wait time for borrower
+	 * @return future completed with a connection,or with SQLException if pool
+	 *         closed or waiting timeout
+	 */
+	public CompletableFuture<Connection> getConnectionAsync(final long maxWaitMillTime) {
+		CompletableFuture<Connection> future = new CompletableFuture<Connection>();
+		if (!this.isNormal()) {
+			future.completeExceptionally(PoolCloseStateException);
+			return future;
+		}
+
+		final long beginTime = System.nanoTime();
+		PooledConnection pooledCon = null;
+		Borrower borrower = this.getBorrower();
+		List<PooledConnection> badConList = borrower.getBadConnectionList();
+		try {
+			if ((pooledCon = this.searchOneConnection(borrower, badConList)) == null) {
+				AsyncBorrower waiter = new AsyncBorrower(future, beginTime);
+				this.asyncWaiterSize.incrementAndGet();
+				// timeout attached before waiter published,then any completion can cancel it
+				waiter.timeoutFuture = this.housekeeper.scheduleTimeout(waiter, maxWaitMillTime);
+				waiter.node = this.asyncWaitQueue.offer(waiter);
+				if (waiter.isDone())// timeout before published
+					this.asyncWaitQueue.cancel(waiter.node, waiter);
+				if (this.conCurSize.get() < this.poolMaxSize)
+					this.connectionCreator.requestCreate();
+
+				// search again,a connection may be released before waiter registered
+				if ((pooledCon = this.searchOneConnection(borrower, badConList)) != null) {
+					if (waiter.compareAndSetState(AsyncBorrower.STATE_WAITING, AsyncBorrower.STATE_DONE)) {
+						waiter.cancel();
+					} else {// waiter has been completed by release or timeout
+						this.releasePooledConnection(pooledCon);
+						pooledCon = null;
+					}
+				}
+			}
+			if (pooledCon != null) {
+				this.metrics.scanHitCount.increment();
+				this.completeAsyncBorrower(future, pooledCon, beginTime);
+			}
+		} catch (SQLException e) {
+			future.completeExceptionally(e);
+		} finally {
+			if (!badConList.isEmpty()) {
+				this.conArray.removeAll(badConList);
+				badConList.clear();
+			}
+			this.releaseBorrower(borrower);
+		}
+		return future;
+	}
+
+	private Borrower getBorrower() {
+		if (this.isVirtualThreadMode && BorrowerPool.isVirtualThread(Thread.currentThread()))
+			return this.borrowerPool.take();
+
+		Borrower borrower = null;
+		WeakReference<Borrower> borrowerRef = this.borrowerThreadLocal.get();
+		if (borrowerRef != null)borrower = borrowerRef.get();
+		if (borrower == null) {
+			borrower = new Borrower();
+			this.borrowerThreadLocal.set(new WeakReference<Borrower>(borrower));
+		}
+		return borrower;
+	}
+	
+	private void releaseBorrower(Borrower borrower) {
+		if (borrower.isPooled())
+			this.borrowerPool.release(borrower);
+	}
+	
+	private ProxyConnection createProxyConnection(PooledConnection pooledCon) throws SQLException {
+		ProxyConnection proxyConnection = ProxyConnectionFactory.createProxyConnection(pooledCon);
+		pooledCon.bindProxyConnection(proxyConnection);
+		pooledCon.updateLastActivityTime();
+		pooledCon.resizeStatementCache(this.statementCacheSize);
+		pooledCon.setBorrowNanoTime(System.nanoTime());
+		if (this.leakDetectionThreshold > 0) {
+			boolean sampled = this.leakStackSampleRate == 1 || ThreadLocalRandom.current().nextInt(this.leakStackSampleRate) == 0;
+			pooledCon.markBorrowed(sampled ? new Throwable("Connection borrowed here") : null);
+		}
+		return proxyConnection;
+	}
+	
+	/**
+	 * complete future with connection,if future has been cancelled by
+	 * caller,then return the connection to pool
+	 */
+	private void completeAsyncBorrower(CompletableFuture<Connection> future, PooledConnection pooledCon, long beginTime) throws SQLException {
+		ProxyConnection proxyConnection = this.createProxyConnection(pooledCon);
+		this.metrics.borrowWaitTime.record(pooledCon.getBorrowNanoTime() - beginTime);
+		if (!future.complete(proxyConnection))
+			proxyConnection.close();
+	}
+	
+	/**
+	 * transfer released connection to an async waiter(before blocking waiters)
+	 * 
+	 * @return true if transfered
+	 */
+	protected boolean transferToAsyncWaiter(PooledConnection pooledConnection) {
+		if (this.asyncWaitQueue.isEmpty())
+			return false;
+
+		AsyncBorrower waiter;
+		while ((waiter = this.asyncWaitQueue.poll()) != null) {
+			if (waiter.compareAndSetState(AsyncBorrower.STATE_WAITING, AsyncBorrower.STATE_DONE)) {
+				waiter.cancelTimeout();
+				try {
+					this.metrics.waitHitCount.increment();
+					this.completeAsyncBorrower(waiter.future, pooledConnection, waiter.beginTime);
+					return true;
+				} catch (SQLException e) {
+					waiter.future.completeExceptionally(e);
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+	
+	private int getScanStrategy(String strategy) {
+		if (BeeDataSourceConfig.SCAN_THREAD.equals(strategy))
+			return SCAN_THREAD;
+		else if (BeeDataSourceConfig.SCAN_RANDOM.equals(strategy))
+			return SCAN_RANDOM;
+		else if (BeeDataSourceConfig.SCAN_LIFO.equals(strategy))
+			return SCAN_LIFO;
+		else
+			return SCAN_SEQUENTIAL;
+	}
+	
+	/**
+	 * scan pool array from the start position of scan strategy,read state
+	 * before CAS,then a failed CAS means another borrower took it first
+	 */
+	private PooledConnection searchOneConnection(Borrower borrower,List<PooledConnection> badConList) {
+		final PooledConnection[] array = this.conArray.getArray();
+		final int size = array.length;
+		if (size == 0)
+			return null;
+
+		int index = 0, step = 1;
+		if (this.scanStrategy == SCAN_THREAD) {
+			index = borrower.getScanStart() % size;
+		} else if (this.scanStrategy == SCAN_RANDOM) {
+			index = borrower.nextRandom() % size;
+		} else if (this.scanStrategy == SCAN_LIFO) {
+			index = size - 1;
+			step = -1;
+		}
+
+		for (int i = 0; i < size; i++) {
+			PooledConnection pooledConnection = array[index];
+			if (pooledConnection.getConnectionState() == PooledConnectionState.IDLE) {
+				if (!pooledConnection.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.USING))
+					this.metrics.scanCasFailCount.increment();
+				else if (this.checkOnBorrowed(pooledConnection, badConList))
+					return pooledConnection;
+			}
+			index += step;
+			if (index == size)
+				index = 0;
+			else if (index < 0)
+				index = size - 1;
+		}
+		return null;
 	}
 	private PooledConnection createOneConneciton() throws SQLException {
-		 final int PoolMaxSize = poolInfo.getPoolMaxSize();	
-		 final int PreparedStatementCacheSize=poolInfo.getPreparedStatementCacheSize();
+		 final int PoolMaxSize = this.poolMaxSize;	
+		 final int PreparedStatementCacheSize=this.statementCacheSize;
 		 
 		if (this.conCurSize.get() < PoolMaxSize) {
 			if (this.conCurSize.incrementAndGet() <= PoolMaxSize) {
@@ -347,7 +1092,12 @@ public class ConnectionPool{
 					Connection con = this.connectionFactory.createConnection();
 					PooledConnection pooledCon = new PooledConnection(con,PreparedStatementCacheSize,this);
 					pooledCon.setConnectionState(PooledConnectionState.USING);
-					this.conArray.add(pooledCon);
+					if (!this.conArray.addIfOpen(pooledCon)) {// pool destroyed during connect
+						pooledCon.setConnectionState(PooledConnectionState.CLOSED);
+						pooledCon.removeFromPool();
+						this.conCurSize.decrementAndGet();
+						return null;
+					}
 					return pooledCon;
 				} catch (SQLException e) {
 					this.conCurSize.decrementAndGet();
@@ -359,9 +1109,42 @@ public class ConnectionPool{
 		}
 		return null;
 	}
+	/**
+	 * create one connection in background thread(called by connection creator),
+	 * new connection is transfered to a waiting borrower through release path
+	 * 
+	 * @return if one connection created then return true,otherwise false
+	 */
+	boolean createConnectionInBackground() {
+		if (!this.isNormal())
+			return false;
+		try {
+			PooledConnection pooledCon = this.createOneConneciton();
+			if (pooledCon == null)
+				return false;
+			this.createFailException = null;
+			pooledCon.updateLastActivityTime();
+			this.releasePooledConnection(pooledCon);
+			return true;
+		} catch (SQLException e) {
+			this.createFailException = e;
+			return false;
+		}
+	}
+	/**
+	 * called after borrower registered as a waiter,then request creator to
+	 * create a connection for it(if need)
+	 */
+	protected void onWaiterRegistered(Borrower borrower) {
+		if (borrower.isCreateRequested()) {
+			borrower.setCreateRequested(false);
+			this.connectionCreator.requestCreate();
+		}
+	}
 	protected PooledConnection waitRelease(long timeout,Borrower borrower) {
 		try {
 			this.waiterSize.incrementAndGet();
+			this.onWaiterRegistered(borrower);
 			return this.transferQueue.poll(timeout,MillSecondTimeUnit);
 		} catch (InterruptedException e) {
 			return null;
@@ -391,22 +1174,28 @@ public class ConnectionPool{
 	 *             if error occurred,then throws exception
 	 */
 	public void releasePooledConnection(final PooledConnection pooledConnection) throws SQLException {
-		 this.transferPolicy.tryTransferToWaiter(pooledConnection);
+		if (this.closeIfOversized(pooledConnection) || this.closeIfRetired(pooledConnection) || this.transferToAsyncWaiter(pooledConnection))
+			return;
+		this.transferPolicy.tryTransferToWaiter(pooledConnection);
 	}
 
 	/**
-	 * inner timer will call the method to clear some idle timeout connections
+	 * housekeeper will call the method to clear some idle timeout connections
 	 * or dead connections,or long time not active connections in using state
 	 */
 	public void closeIdleTimeoutConnection() {
-		if (this.isNormal() && !this.existWaiting()) {
+		if (this.isNormal() && !this.existWaiting() && this.asyncWaitQueue.isEmpty()) {
+			int idleSize = this.getIdleSize();
 			LinkedList<PooledConnection> badConList = new LinkedList<PooledConnection>();
 			for (PooledConnection pooledConnection:conArray.getArray()) {
 				final int state = pooledConnection.getConnectionState();
 				if (state == PooledConnectionState.IDLE) {
 					final boolean isDead = !this.isActivePooledConnection(pooledConnection);
-					final boolean isTimeout = ((systemClock.currentTimeMillis() - pooledConnection.getLastActiveTime()-poolInfo.getConnectionIdleTimeout()>=0));
+					final boolean isTimeout = idleSize > this.poolMinIdle && ((systemClock.currentTimeMillis() - pooledConnection.getLastActiveTime()-poolInfo.getConnectionIdleTimeout()>=0));
 					if ((isDead || isTimeout) && (pooledConnection.compareAndSet(state, PooledConnectionState.CLOSED))) {
+						if (!isDead)
+							this.metrics.idleTimeoutEvictCount.increment();
+						idleSize--;
 						this.conCurSize.decrementAndGet();
 						pooledConnection.removeFromPool();
 						badConList.add(pooledConnection);
@@ -414,8 +1203,10 @@ public class ConnectionPool{
 
 				} else if (state == PooledConnectionState.USING) {
 					final boolean isDead = !this.isActivePooledConnection(pooledConnection);
-					final boolean isTimeout = ((systemClock.currentTimeMillis() - pooledConnection.getLastActiveTime()-MAX_IDLE_TIME_IN_USING >=0));
+					final boolean isTimeout = this.isForcedReclaimTimeout(pooledConnection);
 					if ((isDead || isTimeout) && (pooledConnection.compareAndSet(state, PooledConnectionState.CLOSED))) {
+						if (!isDead)
+							this.metrics.forcedReclaimCount.increment();
 						this.conCurSize.decrementAndGet();
 						pooledConnection.removeFromPool();
 						badConList.add(pooledConnection);
@@ -431,6 +1222,72 @@ public class ConnectionPool{
 				badConList.clear();
 				badConList = null;
 			}
+			this.fillMinIdle();
+		}
+	}
+
+	private boolean isForcedReclaimTimeout(PooledConnection pooledConnection) {
+		return this.forcedReclaimTime > 0 && systemClock.currentTimeMillis() - pooledConnection.getLastActiveTime() - this.forcedReclaimTime >= 0;
+	}
+
+	/**
+	 * housekeeper call the method to report borrowed connections not returned
+	 * over leak detection threshold(once for each borrow)
+	 */
+	public void detectLeakConnections() {
+		if (this.leakDetectionThreshold <= 0 || !this.isNormal())
+			return;
+
+		for (PooledConnection pooledConnection : conArray.getArray()) {
+			long borrowTime = pooledConnection.getBorrowTime();
+			if (borrowTime > 0 && !pooledConnection.isLeakReported()
+					&& systemClock.currentTimeMillis() - borrowTime - this.leakDetectionThreshold >= 0
+					&& pooledConnection.getConnectionState() == PooledConnectionState.USING) {
+				pooledConnection.setLeakReported(true);
+				this.metrics.leakDetectedCount.increment();
+				Throwable borrowStack = pooledConnection.getBorrowStack();
+				System.out.println("BeeCP connection leak detected,held(ms):" + (systemClock.currentTimeMillis() - borrowTime)
+						+ ",thread:" + pooledConnection.getBorrowThreadName() + (borrowStack == null ? ",stack not sampled" : ""));
+				if (borrowStack != null)
+					borrowStack.printStackTrace(System.out);
+			}
+		}
+	}
+
+	/**
+	 * housekeeper call the method in background validation mode,validate idle
+	 * connections not used or validated for keepalive time(jittered),valid
+	 * ones are marked with validated time,bad ones are removed
+	 */
+	public void keepaliveIdleConnections() {
+		if (!this.isNormal())
+			return;
+
+		final long keepaliveTime = this.poolInfo.getKeepaliveTime();
+		LinkedList<PooledConnection> badConList = new LinkedList<PooledConnection>();
+		for (PooledConnection pooledConnection : conArray.getArray()) {
+			long idleTime = systemClock.currentTimeMillis() - Math.max(pooledConnection.getLastActiveTime(), pooledConnection.getLastValidatedTime());
+			long jitterKeepaliveTime = keepaliveTime - (long) (keepaliveTime * 0.2 * pooledConnection.getRandomFactor());
+			if (idleTime >= jitterKeepaliveTime && pooledConnection.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.USING)) {
+				if (this.validatePooledConnection(pooledConnection) && this.rollbackAfterValidation(pooledConnection)) {
+					pooledConnection.updateLastValidatedTime();
+					try {
+						this.releasePooledConnection(pooledConnection);
+					} catch (SQLException e) {
+						pooledConnection.setConnectionState(PooledConnectionState.IDLE);
+					}
+				} else {
+					pooledConnection.setConnectionState(PooledConnectionState.CLOSED);
+					this.conCurSize.decrementAndGet();
+					pooledConnection.removeFromPool();
+					badConList.add(pooledConnection);
+				}
+			}
+		}
+
+		if (!badConList.isEmpty()) {
+			this.conArray.removeAll(badConList);
+			this.fillMinIdle();
 		}
 	}
 
@@ -440,14 +1297,33 @@ public class ConnectionPool{
 	public void destroy() {
 		if (this.isNormal()) {
 			this.state = STATE_CLOSED;
-			this.connectionIdleCheckTimer.cancel();
+			this.housekeeper.unregister(this, this.idleCheckFuture);
+			this.unregisterMBean();
+			if (this.keepaliveFuture != null)
+				this.keepaliveFuture.cancel(false);
+			if (this.leakDetectFuture != null)
+				this.leakDetectFuture.cancel(false);
+			if (this.minIdleFuture != null)
+				this.minIdleFuture.cancel(false);
+			this.connectionCreator.shutdown();
+			this.poolWorker.shutdown();
+			AsyncBorrower waiter;
+			while ((waiter = this.asyncWaitQueue.poll()) != null) {
+				if (waiter.compareAndSetState(AsyncBorrower.STATE_WAITING, AsyncBorrower.STATE_DONE)) {
+					waiter.cancelTimeout();
+					waiter.future.completeExceptionally(PoolCloseStateException);
+				}
+			}
 			
 			while (this.existWaiting()) 
 			 LockSupport.parkNanos(10);
+			this.conArray.close();// connections created from now on are closed by creators
 			
-			//clear all connections
+			//clear all connections,borrowed ones are closed after destroy deadline(forced reclaim may be off)
+			final long destroyDeadline = systemClock.currentTimeMillis() + MAX_DESTROY_WAIT_TIME;
 			LinkedList<PooledConnection> badConList = new LinkedList<PooledConnection>();
 			while (this.conArray.size() > 0) {
+				final boolean isDestroyTimeout = systemClock.currentTimeMillis() - destroyDeadline >= 0;
 				PooledConnection[]  connListArray = conArray.getArray();
 				for (PooledConnection pooledConnection : connListArray) {
 					if (pooledConnection.compareAndSet(PooledConnectionState.IDLE, PooledConnectionState.CLOSED)) {
@@ -457,7 +1333,7 @@ public class ConnectionPool{
 						badConList.add(pooledConnection);
 					} else if (pooledConnection.getConnectionState() == PooledConnectionState.USING) {
 						final boolean isDead = !this.isActivePooledConnection(pooledConnection);
-						final boolean isTimeout = ((systemClock.currentTimeMillis()-pooledConnection.getLastActiveTime()-MAX_IDLE_TIME_IN_USING >=0));
+						final boolean isTimeout = isDestroyTimeout || this.isForcedReclaimTimeout(pooledConnection);
 						if ((isDead || isTimeout) && (pooledConnection.compareAndSet(PooledConnectionState.USING, PooledConnectionState.CLOSED))) {
 							pooledConnection.removeFromPool();
 							badConList.add(pooledConnection);
@@ -473,44 +1349,105 @@ public class ConnectionPool{
 					LockSupport.parkNanos(1000);
 			}//while
 			this.conCurSize.set(0);
-			
-			try {
-				Runtime.getRuntime().removeShutdownHook(this.connectionPoolHook);
-			} catch (Throwable e) {}
-			System.out.println("BeeCP has been shutdown");
+
+			System.out.println("BeeCP(" + this.poolName + ") has been shutdown");
 		}
 	}
 
 	/**
-	 * a inner task to scan idle timeout connections or dead
+	 * periodic housekeeping task,housekeeper thread only hands it to pool
+	 * worker(a hung database not stall other pools),a run is skipped if last
+	 * one not finished
+	 */
+	private abstract class PoolWorkerTask implements Runnable {
+		private final AtomicBoolean running = new AtomicBoolean(false);
+		private final Runnable worker = new Runnable() {
+			public void run() {
+				try {
+					runTask();
+				} catch (Throwable e) {
+					System.out.println("BeeCP(" + poolName + ") housekeeping task failed:" + e);
+				} finally {
+					running.set(false);
+				}
+			}
+		};
+
+		public void run() {
+			if (this.running.compareAndSet(false, true)) {
+				try {
+					poolWorker.execute(this.worker);
+				} catch (RejectedExecutionException e) {// pool closed
+					this.running.set(false);
+				}
+			}
+		}
+
+		protected abstract void runTask();
+	}
+
+	/**
+	 * a inner task to validate idle connections in background
 	 */
-	private class PooledConnectionIdleTask extends TimerTask {
+	private class PooledConnectionKeepaliveTask extends PoolWorkerTask {
 		private ConnectionPool poolReference;
 
-		public PooledConnectionIdleTask(ConnectionPool connectionPool) {
+		public PooledConnectionKeepaliveTask(ConnectionPool connectionPool) {
 			this.poolReference = connectionPool;
 		}
 
-		public void run() {
-			this.poolReference.closeIdleTimeoutConnection();
+		protected void runTask() {
+			this.poolReference.keepaliveIdleConnections();
 		}
 	}
 
 	/**
-	 * Hook when JVM exit
+	 * a inner task to detect leaked connections
 	 */
-	 class ConnectionPoolHook extends Thread {
-		private ConnectionPool pool;
+	private class PooledConnectionLeakTask extends PoolWorkerTask {
+		private ConnectionPool poolReference;
+
+		public PooledConnectionLeakTask(ConnectionPool connectionPool) {
+			this.poolReference = connectionPool;
+		}
 
-		public ConnectionPoolHook(ConnectionPool connectionPool) {
-			this.pool = connectionPool;
+		protected void runTask() {
+			this.poolReference.detectLeakConnections();
+		}
+	}
+
+	/**
+	 * a inner task to keep min idle size,only requests creator(no blocking
+	 * work),so run in housekeeper thread directly
+	 */
+	private class PooledConnectionMinIdleTask implements Runnable {
+		private ConnectionPool poolReference;
+
+		public PooledConnectionMinIdleTask(ConnectionPool connectionPool) {
+			this.poolReference = connectionPool;
 		}
 
 		public void run() {
-			pool.destroy();
+			this.poolReference.fillMinIdle();
 		}
 	}
-	
+
+	/**
+	 * a inner task to scan idle timeout connections or dead
+	 */
+	private class PooledConnectionIdleTask extends PoolWorkerTask {
+		private ConnectionPool poolReference;
+
+		public PooledConnectionIdleTask(ConnectionPool connectionPool) {
+			this.poolReference = connectionPool;
+		}
+
+		protected void runTask() {
+			this.poolReference.closeIdleTimeoutConnection();
+			this.poolReference.closeRetiredIdleConnections();
+		}
+	}
+
 	 class ConnectionFactory {
 		private String jdbcURL;
 		private Properties jdbcProperties;
@@ -521,14 +1458,349 @@ public class ConnectionPool{
 			this.jdbcConnectionDriver=jdbcConnectionDriver;
 		}
 		public Connection createConnection() throws SQLException {
-			if (jdbcConnectionDriver!=null) {
-				return jdbcConnectionDriver.connect(jdbcURL,this.jdbcProperties);
-			} else {
-				return DriverManager.getConnection(jdbcURL,this.jdbcProperties);
+			long begin = System.nanoTime();
+			try {
+				if (jdbcConnectionDriver!=null) {
+					return jdbcConnectionDriver.connect(jdbcURL,this.jdbcProperties);
+				} else {
+					return DriverManager.getConnection(jdbcURL,this.jdbcProperties);
+				}
+			} catch (SQLException e) {
+				metrics.createFailCount.increment();
+				throw e;
+			} finally {
+				metrics.createTime.record(System.nanoTime() - begin);
 			}
 		}
 	}
 	
+	/**
+	 * callback waiter of getConnectionAsync,also its timeout task
+	 */
+	class AsyncBorrower implements Runnable {
+		static final int STATE_WAITING = 0;
+		static final int STATE_DONE = 1;
+		private final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+		final CompletableFuture<Connection> future;
+		final long beginTime;
+		volatile WaitQueue.Node<AsyncBorrower> node;
+		volatile ScheduledFuture<?> timeoutFuture;
+
+		AsyncBorrower(CompletableFuture<Connection> future, long beginTime) {
+			this.future = future;
+			this.beginTime = beginTime;
+		}
+
+		/**
+		 * only transition is from waiting to done,then waiter not counted
+		 */
+		boolean compareAndSetState(int expect, int update) {
+			if (!this.state.compareAndSet(expect, update))
+				return false;
+			if (update == STATE_DONE)
+				asyncWaiterSize.decrementAndGet();
+			return true;
+		}
+
+		boolean isDone() {
+			return this.state.get() == STATE_DONE;
+		}
+
+		void cancelTimeout() {
+			ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+			if (timeoutFuture != null)
+				timeoutFuture.cancel(false);
+		}
+
+		/**
+		 * remove from wait queue and cancel timeout task
+		 */
+		void cancel() {
+			asyncWaitQueue.cancel(this.node, this);
+			this.cancelTimeout();
+		}
+
+		/**
+		 * waiting timeout
+		 */
+		public void run() {
+			if (this.compareAndSetState(STATE_WAITING, STATE_DONE)) {
+				WaitQueue.Node<AsyncBorrower> node = this.node;
+				if (node != null)// null if not published yet
+					asyncWaitQueue.cancel(node, this);
+				if (!isNormal())
+					this.future.completeExceptionally(PoolCloseStateException);
+				else if (createFailException != null)
+					this.future.completeExceptionally(createFailException);
+				else
+					this.future.completeExceptionally(ConnectionRequestTimeoutException);
+				if (isNormal())
+					metrics.timeoutCount.increment();
+			}
+		}
+	}
+
+	/**
+	 * create connections in background threads with bounded concurrency,serve
+	 * waiting borrowers at first,then create some idle connections ahead
+	 */
+	class ConnectionCreator implements Runnable {
+		private final int threadSize;
+		private final int aheadSize;
+		private final ThreadPoolExecutor executor;
+		private final AtomicInteger runningSize = new AtomicInteger(0);
+		private final AtomicInteger requestSize = new AtomicInteger(0);
+		// idle connections to create ahead,armed only by requestCreateAhead
+		private final AtomicInteger aheadRequestSize = new AtomicInteger(0);
+
+		public ConnectionCreator(int threadSize, int aheadSize) {
+			this.threadSize = threadSize;
+			this.aheadSize = aheadSize;
+			this.executor = new ThreadPoolExecutor(threadSize, threadSize, 15, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "BeeCP connection creator");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			this.executor.allowCoreThreadTimeOut(true);
+		}
+
+		/**
+		 * request to create one connection for a borrower,who will wait for transfer
+		 */
+		public void requestCreate() {
+			this.requestSize.incrementAndGet();
+			this.startCreate();
+		}
+
+		public int getRequestSize() {
+			return this.requestSize.get();
+		}
+
+		/**
+		 * request to create some connections,they will be idle if no waiter
+		 */
+		public void requestCreate(int size) {
+			this.requestSize.addAndGet(size);
+			this.startCreate();
+		}
+
+		/**
+		 * request to create some idle connections ahead of demand
+		 */
+		public void requestCreateAhead() {
+			if (this.aheadSize > 0) {
+				this.aheadRequestSize.set(this.aheadSize);
+				this.startCreate();
+			}
+		}
+
+		private void startCreate() {
+			int running;
+			while ((running = this.runningSize.get()) < this.threadSize && isNormal()) {
+				if (conCurSize.get() >= poolMaxSize) {
+					this.requestSize.set(0);
+					this.aheadRequestSize.set(0);
+					return;
+				}
+				if (this.runningSize.compareAndSet(running, running + 1)) {
+					try {
+						this.executor.execute(this);
+					} catch (RejectedExecutionException e) {// executor shutdown by pool destroy,waiters are failed by destroy
+						this.runningSize.decrementAndGet();
+						this.requestSize.set(0);
+					}
+					return;
+				}
+			}
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					int requests = this.requestSize.get();
+					if (requests > 0) {
+						if (!this.requestSize.compareAndSet(requests, requests - 1))
+							continue;
+					} else if ((requests = this.aheadRequestSize.get()) > 0) {
+						if (!this.aheadRequestSize.compareAndSet(requests, requests - 1))
+							continue;
+					} else {
+						break;
+					}
+					if (!createConnectionInBackground()) {// pool full or create failed
+						this.requestSize.set(0);
+						this.aheadRequestSize.set(0);
+						break;
+					}
+				}
+			} finally {
+				this.runningSize.decrementAndGet();
+			}
+
+			if (this.requestSize.get() > 0 || this.aheadRequestSize.get() > 0)
+				this.startCreate();
+		}
+
+		public void shutdown() {
+			this.executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * create initial connections with some threads in parallel,in sync mode,
+	 * connections are added to pool after all created;in async mode,each
+	 * connection is added to pool as idle once created
+	 */
+	class PoolInitializer implements Callable<Integer> {
+		private final int initSize;
+		private final int threadSize;
+		private final long timeout;
+		private final boolean async;
+		private final AtomicInteger remainSize;
+		private final List<PooledConnection> createdList;
+		private volatile boolean aborted;
+		private volatile SQLException failException;
+		private boolean finished;
+		private int createdSize;
+
+		public PoolInitializer(int initSize, int threadSize, long timeout, boolean async) {
+			this.initSize = initSize;
+			this.threadSize = Math.max(1, Math.min(initSize, threadSize));
+			this.timeout = timeout;
+			this.async = async;
+			this.remainSize = new AtomicInteger(initSize);
+			this.createdList = Collections.synchronizedList(new ArrayList<PooledConnection>(initSize));
+		}
+
+		/**
+		 * first call create connections,later calls(from ready future) return result
+		 */
+		public synchronized Integer call() throws SQLException {
+			if (!this.finished) {
+				this.finished = true;
+				this.createdSize = this.createAll();
+			}
+			return this.createdSize;
+		}
+
+		private int createAll() throws SQLException {
+			if (this.initSize == 0)
+				return 0;
+
+			final long deadline = systemClock.currentTimeMillis() + this.timeout;
+			final CountDownLatch finishLatch = new CountDownLatch(this.threadSize);
+			Runnable worker = new Runnable() {
+				public void run() {
+					try {
+						createConnections(deadline);
+					} finally {
+						finishLatch.countDown();
+					}
+				}
+			};
+
+			// workers always run in executor(even single one),so a hung connect is bounded by timeout
+			ExecutorService executor = null;
+			try {
+				executor = Executors.newFixedThreadPool(this.threadSize, new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "BeeCP pool init worker");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				for (int i = 0; i < this.threadSize; i++)
+					executor.execute(worker);
+
+				if (this.timeout > 0) {
+					if (!finishLatch.await(this.timeout, MillSecondTimeUnit))
+						this.failException = new SQLException("Pool initialization timeout(" + this.timeout + "ms)");
+				} else {
+					finishLatch.await();
+				}
+			} catch (InterruptedException e) {
+				this.failException = new SQLException("Pool initialization interrupted");
+			} finally {
+				if (executor != null)
+					executor.shutdown();
+			}
+
+			if (this.failException != null) {
+				synchronized (this.createdList) {
+					this.aborted = true;
+					if (!this.async) {
+						for (PooledConnection pooledConnection : this.createdList) {
+							pooledConnection.setConnectionState(PooledConnectionState.CLOSED);
+							pooledConnection.removeFromPool();
+						}
+						this.createdList.clear();
+					}
+				}
+				throw this.failException;
+			}
+
+			if (!this.async) {
+				conArray.addAll(this.createdList);
+				conCurSize.addAndGet(this.createdList.size());
+			}
+			return this.createdList.size();
+		}
+
+		private void createConnections(long deadline) {
+			try {
+				while (!this.aborted && this.remainSize.getAndDecrement() > 0) {
+					if (this.timeout > 0 && systemClock.currentTimeMillis() - deadline >= 0)
+						throw new SQLException("Pool initialization timeout(" + this.timeout + "ms)");
+
+					Connection con = connectionFactory.createConnection();
+					PooledConnection pooledCon = new PooledConnection(con, statementCacheSize, ConnectionPool.this);
+					if (!this.addCreatedConnection(pooledCon)) {
+						pooledCon.setConnectionState(PooledConnectionState.CLOSED);
+						pooledCon.removeFromPool();
+						break;
+					}
+				}
+			} catch (SQLException e) {
+				if (this.failException == null)
+					this.failException = e;
+				this.aborted = true;
+			}
+		}
+
+		private boolean addCreatedConnection(PooledConnection pooledCon) {
+			synchronized (this.createdList) {
+				if (this.aborted || !isNormal())
+					return false;
+				if (this.async) {
+					// pool is serving borrowers,take a place as demand creation
+					if (conCurSize.incrementAndGet() > poolMaxSize || !conArray.addIfOpen(pooledCon)) {
+						conCurSize.decrementAndGet();
+						return false;
+					}
+				}
+				this.createdList.add(pooledCon);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * semaphore whose permits can be reduced when pool shrink
+	 */
+	@SuppressWarnings("serial")
+	static final class ResizableSemaphore extends Semaphore {
+		public ResizableSemaphore(int permits) {
+			super(permits, false);
+		}
+
+		public void reducePermits(int reduction) {
+			super.reducePermits(reduction);
+		}
+	}
+
 	/**
 	 * Connection transfer
 	 */
@@ -1,8 +1,7 @@
 package org.jmin.bee.pool;
 
 import java.sql.SQLException;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
 import org.jmin.bee.BeeDataSourceConfig;
@@ -14,37 +13,45 @@ import org.jmin.bee.BeeDataSourceConfig;
  * @version 1.0
  */
 public class ConnectionPool2 extends ConnectionPool {
-	private Queue<Borrower> transferQueue = new LinkedBlockingQueue<Borrower>();
 
 	public ConnectionPool2(BeeDataSourceConfig poolInfo) throws SQLException {
 		super(poolInfo);
 	}
 
 	protected boolean existWaiting() {
-		return this.transferQueue.peek() != null;
+		return !this.waitQueue.isEmpty();
 	}
 
 	public PooledConnection waitRelease(long timeout, Borrower borrower) {
+		WaitQueue.Node<Borrower> node = null;
 		try {
+			this.waiterSize.incrementAndGet();
 			borrower.seState(Borrower.STATE_WAIT_INIT);
-			while (!this.transferQueue.offer(borrower))
-				;
+			node = this.waitQueue.offer(borrower);
+			this.onWaiterRegistered(borrower);
 			if (borrower.compareAndSetState(Borrower.STATE_WAIT_INIT, Borrower.STATE_WAITING)) {
-				LockSupport.parkNanos(timeout);
-				if (borrower.compareAndSetState(Borrower.STATE_WAITING, Borrower.STATE_NORMAL)) {
-					this.transferQueue.remove(borrower);
-				}
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(timeout));
+				borrower.compareAndSetState(Borrower.STATE_WAITING, Borrower.STATE_NORMAL);
 			}
 		} finally {
-			borrower.seState(Borrower.STATE_NORMAL);
+			if (node != null)
+				this.waitQueue.cancel(node, borrower);
+			this.waiterSize.decrementAndGet();
 		}
 
-		PooledConnection pooledCon = borrower.getTransferedConnection();
+		PooledConnection pooledCon = null;
+		if (borrower.getState() == Borrower.STATE_TRANSFERED) {
+			while ((pooledCon = borrower.getTransferedConnection()) == null)
+				Thread.yield();
+		}
 		borrower.setTransferedConnection(null);
+		borrower.seState(Borrower.STATE_NORMAL);
 		return pooledCon;
 	}
 
 	public void releasePooledConnection(final PooledConnection pooledConnection) throws SQLException {
+		if (this.closeIfOversized(pooledConnection) || this.closeIfRetired(pooledConnection) || this.transferToAsyncWaiter(pooledConnection))
+			return;
 		Borrower borrower = null;
 		boolean isCompete = !this.poolInfo.isFairMode();
 		if (isCompete)
@@ -54,7 +61,7 @@ public class ConnectionPool2 extends ConnectionPool {
 			if (isCompete && pooledConnection.getConnectionState() != PooledConnectionState.IDLE)
 				return;
 
-			if ((borrower = transferQueue.poll()) != null) {
+			if ((borrower = this.waitQueue.poll()) != null) {
 				if (borrower.compareAndSetState(Borrower.STATE_WAIT_INIT, Borrower.STATE_TRANSFERED)) {
 					borrower.setTransferedConnection(pooledConnection);
 					return;
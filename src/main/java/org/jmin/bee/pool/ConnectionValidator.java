@@ -0,0 +1,39 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import org.jmin.bee.BeeDataSourceConfig;
+
+/**
+ * Connection validator,pool call it to check whether connections are alive.
+ *
+ * implementation class is set by 'connectionValidatorClassName' of
+ * configuration,it need a public constructor without parameter
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public interface ConnectionValidator {
+
+	/**
+	 * called once when pool initialize
+	 */
+	void init(BeeDataSourceConfig config);
+
+	/**
+	 * validate a pooled connection,a validator can keep some objects(prepared
+	 * statement etc.) on connection by attachment
+	 *
+	 * @param pooledConnection connection to validate
+	 * @param timeout seconds,max time of validation
+	 * @return true if connection is alive
+	 */
+	boolean isValid(PooledConnection pooledConnection, int timeout);
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.sql.SQLException;
+
+import org.jmin.bee.BeeDataSourceConfig;
+
+/**
+ * Validator by method 'Connection.isValid(timeout)' of driver
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class IsValidConnectionValidator implements ConnectionValidator {
+
+	public void init(BeeDataSourceConfig config) {
+	}
+
+	public boolean isValid(PooledConnection pooledConnection, int timeout) {
+		try {
+			return pooledConnection.getPhisicConnection().isValid(timeout);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+
+import org.jmin.bee.BeeDataSourceConfig;
+
+/**
+ * Validator by driver native ping method(unwrap connection to vendor
+ * interface),one network round-trip without SQL parsing,if driver not
+ * supported,then validate by 'validationQuerySQL'
+ *
+ * <pre>
+ * MySQL(8.x)   com.mysql.cj.jdbc.JdbcConnection.ping()
+ * MySQL(5.x)   com.mysql.jdbc.MySQLConnection.ping()
+ * Oracle       oracle.jdbc.OracleConnection.pingDatabase(),0 is ok
+ * </pre>
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class PingConnectionValidator implements ConnectionValidator {
+	private static final String[][] PING_METHODS = {
+			{ "com.mysql.cj.jdbc.JdbcConnection", "ping" },
+			{ "com.mysql.jdbc.MySQLConnection", "ping" },
+			{ "oracle.jdbc.OracleConnection", "pingDatabase" } };
+
+	private final SQLConnectionValidator sqlValidator = new SQLConnectionValidator();
+	private volatile boolean resolved;
+	private volatile Class<?> pingInterface;
+	private volatile Method pingMethod;
+
+	public void init(BeeDataSourceConfig config) {
+		this.sqlValidator.init(config);
+	}
+
+	public boolean isValid(PooledConnection pooledConnection, int timeout) {
+		Connection connection = pooledConnection.getPhisicConnection();
+		if (!this.resolved)
+			this.resolvePingMethod(connection);
+		if (this.pingMethod == null)
+			return this.sqlValidator.isValid(pooledConnection, timeout);
+
+		try {
+			Object result = this.pingMethod.invoke(connection.unwrap(this.pingInterface));
+			return !(result instanceof Integer) || ((Integer) result).intValue() == 0;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * find ping method on first connection,all connections are from same driver
+	 */
+	private synchronized void resolvePingMethod(Connection connection) {
+		if (this.resolved)
+			return;
+		for (String[] pingMethod : PING_METHODS) {
+			try {
+				Class<?> pingInterface = Class.forName(pingMethod[0], false, connection.getClass().getClassLoader());
+				if (connection.isWrapperFor(pingInterface)) {
+					this.pingMethod = pingInterface.getMethod(pingMethod[1]);
+					this.pingInterface = pingInterface;
+					break;
+				}
+			} catch (Exception e) {
+			}
+		}
+		this.resolved = true;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Housekeeping scheduler shared by all pools in JVM,schedule idle scan tasks
+ * of pools and close them when JVM exit.
+ *
+ * Scheduled tasks must not block(no JDBC work),pool tasks only hand their
+ * work to pool's own worker thread;each task is guarded,an exception not
+ * cancel its schedule.Timeouts of async borrowers are completed by a separate
+ * timer thread,not delayed by housekeeping tasks.
+ *
+ * thread size can be set by system property: 'beecp.housekeeper.threadSize',default:1
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class PoolHousekeeper {
+	public static final String THREAD_SIZE_PROPERTY = "beecp.housekeeper.threadSize";
+	public static final PoolHousekeeper housekeeper = new PoolHousekeeper(Integer.getInteger(THREAD_SIZE_PROPERTY, 1));
+
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final ScheduledThreadPoolExecutor timeoutTimer;
+	private final List<ConnectionPool> poolList = new CopyOnWriteArrayList<ConnectionPool>();
+
+	private PoolHousekeeper(int threadSize) {
+		this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threadSize), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "BeeCP housekeeper");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.scheduler.setRemoveOnCancelPolicy(true);
+		this.timeoutTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "BeeCP timeout timer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.timeoutTimer.setRemoveOnCancelPolicy(true);
+		Runtime.getRuntime().addShutdownHook(new PoolShutdownHook());
+	}
+
+	/**
+	 * register a pool and schedule its idle scan task
+	 *
+	 * @param pool pool to register
+	 * @param idleCheckTask idle scan task of pool
+	 * @param interval milliseconds,delay between two scans
+	 * @return future to cancel scan task when pool destroy
+	 */
+	ScheduledFuture<?> register(ConnectionPool pool, Runnable idleCheckTask, long interval) {
+		this.poolList.add(pool);
+		return this.scheduler.scheduleWithFixedDelay(new GuardedTask(idleCheckTask), interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * remove a pool and cancel its scan task
+	 */
+	void unregister(ConnectionPool pool, ScheduledFuture<?> idleCheckFuture) {
+		this.poolList.remove(pool);
+		if (idleCheckFuture != null)
+			idleCheckFuture.cancel(false);
+	}
+
+	/**
+	 * schedule a periodic task of pool,cancel it when pool destroy
+	 */
+	ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long interval) {
+		return this.scheduler.scheduleWithFixedDelay(new GuardedTask(task), interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * schedule a one-shot timeout task in timer thread,task must only complete
+	 * a waiter(no blocking work)
+	 */
+	ScheduledFuture<?> scheduleTimeout(Runnable task, long delay) {
+		return this.timeoutTimer.schedule(new GuardedTask(task), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return all alive pools in JVM
+	 */
+	public List<ConnectionPool> getPools() {
+		return new ArrayList<ConnectionPool>(this.poolList);
+	}
+
+	/**
+	 * catch all errors of a task,a periodic task is cancelled by executor if
+	 * it throws
+	 */
+	private static final class GuardedTask implements Runnable {
+		private final Runnable task;
+
+		GuardedTask(Runnable task) {
+			this.task = task;
+		}
+
+		public void run() {
+			try {
+				this.task.run();
+			} catch (Throwable e) {
+				System.out.println("BeeCP housekeeping task failed:" + e);
+			}
+		}
+	}
+
+	/**
+	 * Hook when JVM exit,close all pools
+	 */
+	private class PoolShutdownHook extends Thread {
+		public void run() {
+			for (ConnectionPool pool : poolList) {
+				try {
+					pool.destroy();
+				} catch (Throwable e) {
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jmin.bee.pool.util.LatencyHistogram;
+import org.jmin.bee.pool.util.StripedCounter;
+
+/**
+ * Pool statistics,all are striped and not allocate on update
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+final class PoolMetrics {
+	// borrow path
+	final StripedCounter threadLocalHitCount = new StripedCounter();
+	final StripedCounter threadLocalMissCount = new StripedCounter();
+	final StripedCounter scanHitCount = new StripedCounter();
+	final StripedCounter createHitCount = new StripedCounter();
+	final StripedCounter waitHitCount = new StripedCounter();
+	final StripedCounter timeoutCount = new StripedCounter();
+	final StripedCounter scanCasFailCount = new StripedCounter();
+
+	// connection lifecycle
+	final StripedCounter createFailCount = new StripedCounter();
+	final StripedCounter validationFailCount = new StripedCounter();
+	final StripedCounter idleTimeoutEvictCount = new StripedCounter();
+	final StripedCounter forcedReclaimCount = new StripedCounter();
+	final StripedCounter shrinkEvictCount = new StripedCounter();
+	final StripedCounter lifetimeEvictCount = new StripedCounter();
+	final StripedCounter leakDetectedCount = new StripedCounter();
+
+	// statement cache
+	final StripedCounter statementHitCount = new StripedCounter();
+	final StripedCounter statementMissCount = new StripedCounter();
+	final StripedCounter statementEvictionCount = new StripedCounter();
+
+	/**
+	 * max size of SQL texts tracked by miss/eviction,when full,a new SQL text
+	 * replaces the one with least counts among some sampled(Space-Saving)
+	 */
+	static final int MAX_TRACKED_SQL_SIZE = 1000;
+	private static final int REPLACE_SAMPLE_SIZE = 8;
+	private final ConcurrentHashMap<String, SQLCounter> sqlCounterMap = new ConcurrentHashMap<String, SQLCounter>();
+	private final AtomicReferenceArray<SQLCounter> sqlCounterSlots = new AtomicReferenceArray<SQLCounter>(MAX_TRACKED_SQL_SIZE);
+	private final AtomicInteger sqlCounterSlotSize = new AtomicInteger(0);
+
+	// time histograms
+	final LatencyHistogram borrowWaitTime = new LatencyHistogram();
+	final LatencyHistogram holdTime = new LatencyHistogram();
+	final LatencyHistogram createTime = new LatencyHistogram();
+	final LatencyHistogram validationTime = new LatencyHistogram();
+
+	void reset() {
+		this.threadLocalHitCount.reset();
+		this.threadLocalMissCount.reset();
+		this.scanHitCount.reset();
+		this.createHitCount.reset();
+		this.waitHitCount.reset();
+		this.timeoutCount.reset();
+		this.scanCasFailCount.reset();
+		this.createFailCount.reset();
+		this.validationFailCount.reset();
+		this.idleTimeoutEvictCount.reset();
+		this.forcedReclaimCount.reset();
+		this.shrinkEvictCount.reset();
+		this.lifetimeEvictCount.reset();
+		this.leakDetectedCount.reset();
+		this.statementHitCount.reset();
+		this.statementMissCount.reset();
+		this.statementEvictionCount.reset();
+		this.sqlCounterSlotSize.set(0);
+		for (int i = 0; i < MAX_TRACKED_SQL_SIZE; i++)
+			this.sqlCounterSlots.set(i, null);
+		this.sqlCounterMap.clear();
+		this.borrowWaitTime.reset();
+		this.holdTime.reset();
+		this.createTime.reset();
+		this.validationTime.reset();
+	}
+
+	/**
+	 * statement cache miss(prepare on server),not hot path
+	 */
+	void recordStatementMiss(String sql) {
+		this.statementMissCount.increment();
+		SQLCounter counter = this.getSQLCounter(sql);
+		if (counter != null)
+			counter.missCount.incrementAndGet();
+	}
+
+	void recordStatementEviction(String sql) {
+		this.statementEvictionCount.increment();
+		SQLCounter counter = this.getSQLCounter(sql);
+		if (counter != null)
+			counter.evictionCount.incrementAndGet();
+	}
+
+	private SQLCounter getSQLCounter(String sql) {
+		if (sql == null)
+			return null;
+		SQLCounter counter = this.sqlCounterMap.get(sql);
+		if (counter != null)
+			return counter;
+
+		if (this.sqlCounterSlotSize.get() < MAX_TRACKED_SQL_SIZE) {
+			SQLCounter newCounter = new SQLCounter(sql);
+			if ((counter = this.sqlCounterMap.putIfAbsent(sql, newCounter)) != null)
+				return counter;
+			int slot = this.sqlCounterSlotSize.getAndIncrement();
+			if (slot < MAX_TRACKED_SQL_SIZE) {
+				this.sqlCounterSlots.set(slot, newCounter);
+				return newCounter;
+			}
+			this.sqlCounterMap.remove(sql, newCounter);// slots full
+		}
+		return this.replaceMinSQLCounter(sql);
+	}
+
+	/**
+	 * Space-Saving: new SQL text takes over the counter with least counts
+	 * among some randomly sampled slots and inherits them,so a frequent text
+	 * is not shut out by earlier rare ones;counts of a text may be
+	 * overestimated(by inherited counts).Lock free,slot taken over by CAS.
+	 */
+	private SQLCounter replaceMinSQLCounter(String sql) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (true) {
+			SQLCounter counter = this.sqlCounterMap.get(sql);
+			if (counter != null)
+				return counter;
+
+			int minSlot = -1;
+			SQLCounter minCounter = null;
+			long minCount = Long.MAX_VALUE;
+			for (int i = 0; i < REPLACE_SAMPLE_SIZE; i++) {
+				int slot = random.nextInt(MAX_TRACKED_SQL_SIZE);
+				SQLCounter sample = this.sqlCounterSlots.get(slot);
+				if (sample != null && sample.getCount() < minCount) {
+					minSlot = slot;
+					minCounter = sample;
+					minCount = sample.getCount();
+				}
+			}
+			if (minCounter == null)// slots cleared by reset
+				return null;
+
+			SQLCounter newCounter = new SQLCounter(sql);
+			newCounter.missCount.set(minCounter.missCount.get());
+			newCounter.evictionCount.set(minCounter.evictionCount.get());
+			if ((counter = this.sqlCounterMap.putIfAbsent(sql, newCounter)) != null)
+				return counter;
+			if (this.sqlCounterSlots.compareAndSet(minSlot, minCounter, newCounter)) {
+				this.sqlCounterMap.remove(minCounter.sql, minCounter);
+				return newCounter;
+			}
+			this.sqlCounterMap.remove(sql, newCounter);// slot taken over by other thread,sample again
+		}
+	}
+
+	/**
+	 * @param size top size
+	 * @param byEviction order by eviction count if true,otherwise by miss count
+	 * @return SQL texts and their counts in descending order(approximate,see
+	 *         replaceMinSQLCounter)
+	 */
+	Map<String, Long> getTopSQL(int size, final boolean byEviction) {
+		List<Map.Entry<String, SQLCounter>> entryList = new ArrayList<Map.Entry<String, SQLCounter>>(this.sqlCounterMap.entrySet());
+		final Map<SQLCounter, Long> countMap = new IdentityHashMap<SQLCounter, Long>();
+		for (Map.Entry<String, SQLCounter> entry : entryList)
+			countMap.put(entry.getValue(), byEviction ? entry.getValue().evictionCount.get() : entry.getValue().missCount.get());
+
+		Collections.sort(entryList, new Comparator<Map.Entry<String, SQLCounter>>() {
+			public int compare(Map.Entry<String, SQLCounter> e1, Map.Entry<String, SQLCounter> e2) {
+				return countMap.get(e2.getValue()).compareTo(countMap.get(e1.getValue()));
+			}
+		});
+
+		Map<String, Long> topMap = new LinkedHashMap<String, Long>();
+		for (Map.Entry<String, SQLCounter> entry : entryList) {
+			if (topMap.size() >= size)
+				break;
+			long count = countMap.get(entry.getValue());
+			if (count > 0)
+				topMap.put(entry.getKey(), count);
+		}
+		return topMap;
+	}
+
+	/**
+	 * counts of a SQL text
+	 */
+	static final class SQLCounter {
+		final String sql;
+		final AtomicLong missCount = new AtomicLong();
+		final AtomicLong evictionCount = new AtomicLong();
+
+		SQLCounter(String sql) {
+			this.sql = sql;
+		}
+
+		long getCount() {
+			return this.missCount.get() + this.evictionCount.get();
+		}
+	}
+}
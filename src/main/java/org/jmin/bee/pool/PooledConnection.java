@@ -11,6 +11,7 @@ package org.jmin.bee.pool;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jmin.bee.pool.util.SystemClock;
@@ -27,20 +28,44 @@ public final class PooledConnection {
 	private AtomicInteger state;
 	// last activity time
 	private long lastActiveTime;
+	// created time
+	private final long createTime;
+	// evict epoch of pool when created,retired when pool epoch changed(soft evict)
+	private final int evictEpoch;
+	// last time validated in background
+	private volatile long lastValidatedTime;
+	// random factor(0-1) to jitter background tasks of connections
+	private final double randomFactor = ThreadLocalRandom.current().nextDouble();
 	// physical connection
 	private Connection connection;
 	// PreparedStatement cache
 	private StatementCache statementCache;
+	// last cache size set by pool,adaptive cache may differ from it
+	private int poolStatementCacheSize;
 	// physical connection wrapper
 	private ProxyConnection proxyConnection;
 	// autoCommit
 	private boolean autoCommit;
+	// true if statements executed(or validated) after last commit/rollback,rollback on release only if true
+	private boolean transactionDirty;
 	// transaction level
 	private int transactionIsolationLevlOrig = Connection.TRANSACTION_READ_COMMITTED;
 	// related pool
 	private ConnectionPool connectionPool;
 	//isSurpportSetQueryTimeout
 	private boolean isSurpportSetQueryTimeout=true;
+	// borrow time,zero when not borrowed
+	private volatile long borrowTime;
+	// borrower thread name
+	private String borrowThreadName;
+	// borrower stack(sampled),allocation site when leak detected
+	private Throwable borrowStack;
+	// leak has been reported for current borrow
+	private volatile boolean leakReported;
+	// nano time of borrow,used to record hold time
+	private long borrowNanoTime;
+	// object kept by connection validator(cached validation statement etc.)
+	private Object validatorAttachment;
 	private final SystemClock systemClock=SystemClock.clock;
 	public PooledConnection(Connection connection, ConnectionPool connectionPool) {
 		this(connection, 10, connectionPool);
@@ -49,8 +74,13 @@ public final class PooledConnection {
 	public PooledConnection(Connection connection, int statementCacheSize, ConnectionPool connectionPool) {
 		this.connection = connection;
 		this.state = new AtomicInteger(PooledConnectionState.IDLE);
-		this.statementCache = new StatementCache(statementCacheSize);
+		this.statementCache = new StatementCache(statementCacheSize, connectionPool.isTinyLFUStatementCache(), connectionPool.getMetrics());
+		this.poolStatementCacheSize = statementCacheSize;
+		if (connectionPool.isAdaptiveStatementCache())
+			this.statementCache.setAdaptiveBounds(connectionPool.poolInfo.getStatementCacheMinSize(), connectionPool.poolInfo.getStatementCacheMaxSize());
 		this.connectionPool = connectionPool;
+		this.createTime = systemClock.currentTimeMillis();
+		this.evictEpoch = connectionPool.getEvictEpoch();
 		try {
 			this.autoCommit = this.connection.getAutoCommit();
 			this.transactionIsolationLevlOrig = this.connection.getTransactionIsolation();
@@ -58,10 +88,28 @@ public final class PooledConnection {
 		this.updateLastActivityTime();
 	}
 	
+	public long getCreateTime() {
+		return createTime;
+	}
+
+	public int getEvictEpoch() {
+		return evictEpoch;
+	}
+
 	public StatementCache getStatementCache() {
 		return statementCache;
 	}
 
+	/**
+	 * resize statement cache if pool cache size changed,called when borrowed
+	 */
+	void resizeStatementCache(int statementCacheSize) {
+		if (this.poolStatementCacheSize != statementCacheSize) {
+			this.poolStatementCacheSize = statementCacheSize;
+			this.statementCache.resize(statementCacheSize);
+		}
+	}
+
 	public boolean isSurpportSetQueryTimeout() {
 		return isSurpportSetQueryTimeout;
 	}
@@ -70,10 +118,74 @@ public final class PooledConnection {
 		this.isSurpportSetQueryTimeout = isSurpportSetQueryTimeout;
 	}
 
+	public long getBorrowTime() {
+		return borrowTime;
+	}
+
+	public String getBorrowThreadName() {
+		return borrowThreadName;
+	}
+
+	public Throwable getBorrowStack() {
+		return borrowStack;
+	}
+
+	public long getBorrowNanoTime() {
+		return borrowNanoTime;
+	}
+
+	public void setBorrowNanoTime(long borrowNanoTime) {
+		this.borrowNanoTime = borrowNanoTime;
+	}
+
+	public boolean isLeakReported() {
+		return leakReported;
+	}
+
+	public void setLeakReported(boolean leakReported) {
+		this.leakReported = leakReported;
+	}
+
+	/**
+	 * record borrow information for leak detection
+	 */
+	public void markBorrowed(Throwable borrowStack) {
+		this.borrowThreadName = Thread.currentThread().getName();
+		this.borrowStack = borrowStack;
+		this.leakReported = false;
+		this.borrowTime = systemClock.currentTimeMillis();
+	}
+
+	private void clearBorrowed() {
+		if (this.borrowTime != 0) {
+			if (this.leakReported)
+				System.out.println("BeeCP leaked connection returned,held(ms):" + (systemClock.currentTimeMillis() - this.borrowTime) + ",thread:" + this.borrowThreadName);
+			this.borrowTime = 0;
+			this.borrowThreadName = null;
+			this.borrowStack = null;
+		}
+	}
+
+	public Object getValidatorAttachment() {
+		return validatorAttachment;
+	}
+
+	public void setValidatorAttachment(Object validatorAttachment) {
+		this.validatorAttachment = validatorAttachment;
+	}
+
 	public boolean isAutoCommit() {
 		return autoCommit;
 	}
 
+	public boolean isTransactionDirty() {
+		return transactionDirty;
+	}
+
+	void setTransactionDirty(boolean transactionDirty) {
+		this.transactionDirty = transactionDirty;
+	}
+
 	public int getTransactionIsolationLevl() {
 		return transactionIsolationLevlOrig;
 	}
@@ -86,6 +198,18 @@ public final class PooledConnection {
 		this.lastActiveTime = systemClock.currentTimeMillis();
 	}
 
+	public long getLastValidatedTime() {
+		return lastValidatedTime;
+	}
+
+	public void updateLastValidatedTime() {
+		this.lastValidatedTime = systemClock.currentTimeMillis();
+	}
+
+	public double getRandomFactor() {
+		return randomFactor;
+	}
+
 	public Connection getPhisicConnection() {
 		return this.connection;
 	}
@@ -119,8 +243,9 @@ public final class PooledConnection {
 	}
 
 	public void resetConnectionAfterRelease() throws SQLException {
-		if (!proxyConnection.isAutoCommitValue()) {
+		if (!proxyConnection.isAutoCommitValue() && this.transactionDirty) {
 			this.connection.rollback();
+			this.transactionDirty = false;
 		}
 		if (proxyConnection.isAutoCommitChanged()) {
 			this.connection.setAutoCommit(autoCommit);
@@ -151,6 +276,8 @@ public final class PooledConnection {
 
 	void returnToPoolBySelf() throws SQLException {
 		if (this.state.get() == PooledConnectionState.USING) {
+			this.connectionPool.getMetrics().holdTime.record(System.nanoTime() - this.borrowNanoTime);
+			this.clearBorrowed();
 			if (proxyConnection != null) {
 				this.resetConnectionAfterRelease();
 				this.proxyConnection.setConnectionDataToNull();
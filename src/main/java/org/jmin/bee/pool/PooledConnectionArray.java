@@ -20,6 +20,7 @@ import java.util.concurrent.locks.ReentrantLock;
 public class PooledConnectionArray {
 	private final ReentrantLock lock = new ReentrantLock();
 	private volatile PooledConnection[] array = new PooledConnection[0];
+	private boolean closed;
 	final int size() {
 		return array.length;
 	}
@@ -30,15 +31,38 @@ public class PooledConnectionArray {
 		array = a;
 	}
 	void add(PooledConnection pooledCon) {
+		this.addIfOpen(pooledCon);
+	}
+	/**
+	 * add a connection unless array closed by pool destroy
+	 * @return false if array closed(caller should close the connection)
+	 */
+	boolean addIfOpen(PooledConnection pooledCon) {
 		final ReentrantLock lock = this.lock;
 		lock.lock();
 		try {
+			if (this.closed)
+				return false;
 			final PooledConnection[] arrayOld=getArray();
 			int oldLen = arrayOld.length;
 			PooledConnection[] arrayNew = new PooledConnection[oldLen + 1];
 			System.arraycopy(arrayOld, 0, arrayNew, 0, oldLen);
 			arrayNew[oldLen] = pooledCon;
 			setArray(arrayNew);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+	/**
+	 * reject later adds,called by pool destroy before clearing connections,so
+	 * a connection created during destroy is never left in array
+	 */
+	void close() {
+		final ReentrantLock lock = this.lock;
+		lock.lock();
+		try {
+			this.closed = true;
 		} finally {
 			lock.unlock();
 		}
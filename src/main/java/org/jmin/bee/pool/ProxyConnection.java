@@ -10,11 +10,20 @@
 package org.jmin.bee.pool;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 
 /**
  * physical connection wrapper
  * 
+ * Transaction dirty flag(a non-autocommit connection is rolled back on return
+ * only if set) is set by statement execution,result set row changes,savepoint,
+ * and methods returning raw driver objects(unwrap,getMetaData,Statement
+ * getConnection,ResultSet getStatement).Not seen:work through a raw object
+ * kept from an earlier borrow,and work committed or rolled back by SQL text
+ * (flag stays set,so only an extra rollback).
+ * 
  * @author Chris.Liao
  * @version 1.0
  */
@@ -53,11 +62,57 @@ public abstract class ProxyConnection implements Connection {
 		if (isClosed)throw new SQLException("Connection has been closed");
 		this.pooledConnection.updateLastActivityTime();
 	}
+	/**
+	 * mark uncommitted work,called by statement execution
+	 */
+	void markTransactionDirty() {
+		this.pooledConnection.setTransactionDirty(true);
+	}
 	public void setAutoCommit(boolean autoCommit) throws SQLException {
 		this.updateLastActivityTime();
+		boolean oldAutoCommit = this.autoCommitValue;
 		this.autoCommitValue = autoCommit;
 		this.delegate.setAutoCommit(autoCommit);
 		this.autoCommitChanged = (autoCommit != pooledConnection.isAutoCommit());
+		if (autoCommit || oldAutoCommit)// active transaction committed,or work in autocommit mode committed
+			this.pooledConnection.setTransactionDirty(false);
+	}
+	public void commit() throws SQLException {
+		this.updateLastActivityTime();
+		this.delegate.commit();
+		this.pooledConnection.setTransactionDirty(false);
+	}
+	public void rollback() throws SQLException {
+		this.updateLastActivityTime();
+		this.delegate.rollback();
+		this.pooledConnection.setTransactionDirty(false);
+	}
+	public Savepoint setSavepoint() throws SQLException {
+		this.updateLastActivityTime();
+		this.markTransactionDirty();
+		return this.delegate.setSavepoint();
+	}
+	public Savepoint setSavepoint(String name) throws SQLException {
+		this.updateLastActivityTime();
+		this.markTransactionDirty();
+		return this.delegate.setSavepoint(name);
+	}
+	/**
+	 * meta data queries run on raw connection,so mark dirty
+	 */
+	public DatabaseMetaData getMetaData() throws SQLException {
+		this.updateLastActivityTime();
+		this.markTransactionDirty();
+		return this.delegate.getMetaData();
+	}
+
+	/**
+	 * work through unwrapped raw connection is not tracked,so mark dirty
+	 */
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		this.updateLastActivityTime();
+		this.markTransactionDirty();
+		return this.delegate.unwrap(iface);
 	}
 
 	public boolean isAutoCommitValue() {
@@ -36,6 +36,10 @@ public abstract class ProxyResultSet implements ResultSet {
 		this.proxyStatement.updateLastActivityTime();
 	}
 	
+	protected final void markTransactionDirty() {
+		this.proxyStatement.markTransactionDirty();
+	}
+	
 	public void close() throws SQLException {
 		if (this.isClosed) {
 			throw new SQLException("ResultSet has been closed");
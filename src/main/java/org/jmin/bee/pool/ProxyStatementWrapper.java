@@ -9,6 +9,7 @@
  */
 package org.jmin.bee.pool;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -17,14 +18,39 @@ import org.jmin.bee.pool.util.ConnectionUtil;
 /**
  * ProxyBaseStatement
  * 
+ * Properties changed by a cached statement proxy are marked as dirty(original
+ * values kept before first change),only dirty ones are restored when the
+ * proxy closed,so next borrower not see them.
+ * 
+ * Not tracked:setEscapeProcessing(no effect on a prepared statement,already
+ * parsed),setCursorName(no getter,and no portable way to clear a name) and
+ * setLargeMaxRows(JDBC 4.2 default method,not delegated by proxy,so never
+ * reach driver statement).
+ * 
  * @author Chris.Liao
  * @version 1.0
  */
 public class ProxyStatementWrapper {
+	public static final int DIRTY_PARAMETERS = 1;
+	public static final int DIRTY_BATCH = 2;
+	public static final int DIRTY_MAX_ROWS = 4;
+	public static final int DIRTY_FETCH_SIZE = 8;
+	public static final int DIRTY_QUERY_TIMEOUT = 16;
+	public static final int DIRTY_MAX_FIELD_SIZE = 32;
+	public static final int DIRTY_FETCH_DIRECTION = 64;
+	public static final int DIRTY_POOLABLE = 128;
+
 	protected boolean isClosed;
 	protected Statement delegate;
 	protected ProxyConnection proxyConnection;
 	protected boolean cacheAble;
+	protected int dirtyFlags;
+	private int origMaxRows;
+	private int origFetchSize;
+	private int origQueryTimeout;
+	private int origMaxFieldSize;
+	private int origFetchDirection;
+	private boolean origPoolable;
 
 	public ProxyStatementWrapper(Statement delegate, ProxyConnection proxyConnection, boolean cacheAble) {
 		this.delegate = delegate;
@@ -41,6 +67,70 @@ public class ProxyStatementWrapper {
 		this.proxyConnection.updateLastActivityTime();
 	}
 
+	protected final void markTransactionDirty() {
+		this.proxyConnection.markTransactionDirty();
+	}
+	protected final void markDirty(int flag) {
+		this.dirtyFlags |= flag;
+	}
+	protected final void clearDirty(int flag) {
+		this.dirtyFlags &= ~flag;
+	}
+	/**
+	 * keep original value of a property before its first change(cached
+	 * statement only,others are closed with proxy)
+	 */
+	protected final void saveProperty(int flag) throws SQLException {
+		if (!this.cacheAble)
+			return;
+		if ((this.dirtyFlags & flag) == 0) {
+			switch (flag) {
+			case DIRTY_MAX_ROWS:
+				this.origMaxRows = this.delegate.getMaxRows();
+				break;
+			case DIRTY_FETCH_SIZE:
+				this.origFetchSize = this.delegate.getFetchSize();
+				break;
+			case DIRTY_QUERY_TIMEOUT:
+				this.origQueryTimeout = this.delegate.getQueryTimeout();
+				break;
+			case DIRTY_MAX_FIELD_SIZE:
+				this.origMaxFieldSize = this.delegate.getMaxFieldSize();
+				break;
+			case DIRTY_FETCH_DIRECTION:
+				this.origFetchDirection = this.delegate.getFetchDirection();
+				break;
+			case DIRTY_POOLABLE:
+				this.origPoolable = this.delegate.isPoolable();
+				break;
+			}
+			this.dirtyFlags |= flag;
+		}
+	}
+	/**
+	 * restore dirty properties of cached statement,no driver call if nothing changed
+	 */
+	private void resetDirtyProperties() throws SQLException {
+		int flags = this.dirtyFlags;
+		this.dirtyFlags = 0;
+		if ((flags & DIRTY_PARAMETERS) != 0)
+			((PreparedStatement) this.delegate).clearParameters();
+		if ((flags & DIRTY_BATCH) != 0)
+			this.delegate.clearBatch();
+		if ((flags & DIRTY_MAX_ROWS) != 0)
+			this.delegate.setMaxRows(this.origMaxRows);
+		if ((flags & DIRTY_FETCH_SIZE) != 0)
+			this.delegate.setFetchSize(this.origFetchSize);
+		if ((flags & DIRTY_QUERY_TIMEOUT) != 0)
+			this.delegate.setQueryTimeout(this.origQueryTimeout);
+		if ((flags & DIRTY_MAX_FIELD_SIZE) != 0)
+			this.delegate.setMaxFieldSize(this.origMaxFieldSize);
+		if ((flags & DIRTY_FETCH_DIRECTION) != 0)
+			this.delegate.setFetchDirection(this.origFetchDirection);
+		if ((flags & DIRTY_POOLABLE) != 0)
+			this.delegate.setPoolable(this.origPoolable);
+	}
+
 	public void close() throws SQLException {
 		if (this.isClosed) {
 			throw new SQLException("Statement has been closed");
@@ -50,6 +140,8 @@ public class ProxyStatementWrapper {
 				ConnectionUtil.close(delegate);
 				this.delegate = null;
 				this.proxyConnection =null;
+			} else if (this.dirtyFlags != 0) {
+				this.resetDirtyProperties();
 			}
 		}
 	}
@@ -0,0 +1,65 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.jmin.bee.BeeDataSourceConfig;
+import org.jmin.bee.pool.util.ConnectionUtil;
+
+/**
+ * Validator by executing 'validationQuerySQL',the prepared statement is
+ * cached on connection(attachment),then each check is one execution.
+ *
+ * MySQL driver sends a light ping(COM_PING) instead of query,if SQL begins
+ * with a block comment of word 'ping',then followed by 'SELECT 1'
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class SQLConnectionValidator implements ConnectionValidator {
+	private String validationQuerySQL;
+
+	public void init(BeeDataSourceConfig config) {
+		this.validationQuerySQL = config.getValidationQuerySQL();
+	}
+
+	public boolean isValid(PooledConnection pooledConnection, int timeout) {
+		PreparedStatement statement = null;
+		Object attachment = pooledConnection.getValidatorAttachment();
+		try {
+			if (attachment instanceof PreparedStatement) {
+				statement = (PreparedStatement) attachment;
+			} else {
+				statement = pooledConnection.getPhisicConnection().prepareStatement(this.validationQuerySQL);
+				if (pooledConnection.isSurpportSetQueryTimeout()) {
+					try {
+						statement.setQueryTimeout(timeout);
+					} catch (SQLException e) {
+						pooledConnection.setSurpportSetQueryTimeout(false);
+					}
+				}
+				pooledConnection.setValidatorAttachment(statement);
+			}
+
+			if (statement.execute()) {
+				ResultSet resultSet = statement.getResultSet();
+				ConnectionUtil.close(resultSet);
+			}
+			return true;
+		} catch (SQLException e) {
+			ConnectionUtil.close(statement);
+			pooledConnection.setValidatorAttachment(null);
+			return false;
+		}
+	}
+}
@@ -10,12 +10,26 @@
 package org.jmin.bee.pool;
 
 import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
- * Statement cache
+ * Statement cache,key of prepareStatement(String) is the SQL text itself,
+ * other statements use StatementPsCacheKey/StatementCsCacheKey(never equal to
+ * a String)
+ *
+ * Eviction policy is LRU(default) or W-TinyLFU,a scan over many distinct SQL
+ * texts flushes hot statements out of LRU,but not out of W-TinyLFU
+ *
+ * Adaptive sizing(optional): keys of recently evicted statements(up to max
+ * bound) are kept as ghost entries,a miss on a ghost key evicted d evictions
+ * ago is a hit that d+1 extra slots would have got;hits on the least valuable
+ * entries are what fewer slots would have lost.After each window of lookups,
+ * size grows by the extra slots with best gain per slot if the gain is high,
+ * or shrinks by a step if loss per last slot is low.
  *
  * @author Chris.liao
  * @version 1.0
@@ -25,16 +39,53 @@ public final class StatementCache {
 	private int maxSize;
 	private boolean isValid;
 	private LinkedHashMap<Object, PreparedStatement> cacheMap;
+	// not null if W-TinyLFU policy
+	private WTinyLFUStatementMap tinyLFUMap;
+	// counts of this cache,updated by connection owner thread only
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	// pool wide statistics,null if not in pool
+	private final PoolMetrics metrics;
+
+	// adaptive sizing,ghostMap is null if not adaptive
+	private static final int ADAPT_WINDOW = 1000;
+	private static final double GROW_GAIN_PER_SLOT = 0.005;
+	private static final double SHRINK_LOSS_PER_SLOT = 0.001;
+	private int adaptMinSize;
+	private int adaptMaxSize;
+	private int adaptStep;
+	private int windowLookups;
+	private int tailHits;
+	private int evictionSeq;
+	private int ghostCapacity;
+	private int[] ghostHits;// index is eviction distance
+	private LinkedHashMap<Object, Integer> ghostMap;
+	private HashSet<Object> tailKeySet;
 	
-	@SuppressWarnings("serial")
 	public StatementCache(int maxSize) {
+		this(maxSize, false, null);
+	}
+
+	public StatementCache(int maxSize, boolean tinyLFU) {
+		this(maxSize, tinyLFU, null);
+	}
+	
+	@SuppressWarnings("serial")
+	StatementCache(int maxSize, boolean tinyLFU, PoolMetrics metrics) {
 		this.maxSize=maxSize;
+		this.metrics=metrics;
 		this.isValid=maxSize>0;
+		if (tinyLFU) {
+			this.tinyLFUMap = new WTinyLFUStatementMap(this, maxSize);
+			return;
+		}
 		float mapLoadFactor = 0.75f; 
 		int mapInitialCapacity = (int)Math.ceil(maxSize/mapLoadFactor)+1;
 		this.cacheMap = new LinkedHashMap<Object, PreparedStatement>(mapInitialCapacity, mapLoadFactor, true) {
 			protected boolean removeEldestEntry(Map.Entry<Object,PreparedStatement> eldest) {
 				if (this.size() > StatementCache.this.maxSize) {
+					onEvict(eldest.getKey());
 					onRemove(eldest.getKey(), eldest.getValue());
 					return true;
 				} else {
@@ -49,16 +100,164 @@ public final class StatementCache {
 	public boolean isValid() {
 		return isValid;
 	}
+	public boolean isTinyLFU() {
+		return tinyLFUMap != null;
+	}
+	public boolean isAdaptive() {
+		return ghostMap != null;
+	}
+	/**
+	 * enable adaptive sizing,max size changes between the bounds
+	 */
+	@SuppressWarnings("serial")
+	public void setAdaptiveBounds(int minSize, int maxSize) {
+		if (minSize <= 0 || minSize > maxSize)
+			throw new IllegalArgumentException("Adaptive statement cache bounds must be:0<minSize<=maxSize");
+		this.adaptMinSize = minSize;
+		this.adaptMaxSize = maxSize;
+		this.ghostMap = new LinkedHashMap<Object, Integer>() {
+			protected boolean removeEldestEntry(Map.Entry<Object, Integer> eldest) {
+				return this.size() > StatementCache.this.ghostCapacity;
+			}
+		};
+		this.tailKeySet = new HashSet<Object>();
+		this.resize(Math.min(Math.max(this.maxSize, minSize), maxSize));
+	}
+	/**
+	 * change max size,least recently used statements over new size are closed
+	 */
+	public void resize(int maxSize) {
+		this.maxSize = maxSize;
+		this.isValid = maxSize > 0;
+		if (this.tinyLFUMap != null) {
+			this.tinyLFUMap.resize(maxSize);
+		} else {
+			Iterator<Map.Entry<Object, PreparedStatement>> itor = this.cacheMap.entrySet().iterator();
+			while (this.cacheMap.size() > maxSize && itor.hasNext()) {
+				Map.Entry<Object, PreparedStatement> entry = itor.next();
+				itor.remove();
+				this.onEvict(entry.getKey());
+				this.onRemove(entry.getKey(), entry.getValue());
+			}
+		}
+		if (this.ghostMap != null)
+			this.resetAdaptWindow();
+	}
 	public int size() {
-		return this.cacheMap.size();
+		return (this.tinyLFUMap != null) ? this.tinyLFUMap.size() : this.cacheMap.size();
+	}
+	public long getHitCount() {
+		return hitCount;
+	}
+	public long getMissCount() {
+		return missCount;
+	}
+	public long getEvictionCount() {
+		return evictionCount;
 	}
 	public PreparedStatement getStatement(Object key) {
-		return (this.cacheMap.size()== 0)?null:this.cacheMap.get(key) ;
+		PreparedStatement statement;
+		if (this.tinyLFUMap != null)
+			statement = (this.maxSize == 0) ? null : this.tinyLFUMap.get(key);
+		else
+			statement = (this.cacheMap.size() == 0) ? null : this.cacheMap.get(key);
+		if (statement != null) {
+			this.hitCount++;
+			if (this.metrics != null)
+				this.metrics.statementHitCount.increment();
+		} else {
+			this.missCount++;
+			if (this.metrics != null)
+				this.metrics.recordStatementMiss(getSql(key));
+		}
+		if (this.ghostMap != null)
+			this.recordAdaptLookup(key, statement != null);
+		return statement;
+	}
+	private void recordAdaptLookup(Object key, boolean hit) {
+		if (hit) {
+			if (!this.tailKeySet.isEmpty() && this.tailKeySet.contains(key))
+				this.tailHits++;
+		} else {
+			Integer seq = this.ghostMap.remove(key);
+			if (seq != null) {
+				int distance = this.evictionSeq - 1 - seq.intValue();
+				if (distance >= 0 && distance < this.ghostHits.length)
+					this.ghostHits[distance]++;
+			}
+		}
+		if (++this.windowLookups >= ADAPT_WINDOW)
+			this.adapt();
+	}
+	/**
+	 * compare gain per extra slot(ghost hits) and loss per last slot(tail
+	 * hits) of last window,then grow or shrink max size
+	 */
+	private void adapt() {
+		double lookups = this.windowLookups;
+		int hits = 0;
+		int growSize = 0;
+		double gainPerSlot = 0;
+		for (int i = 0; i < this.ghostHits.length; i++) {
+			hits += this.ghostHits[i];
+			double gain = hits / lookups / (i + 1);
+			if (gain > gainPerSlot) {
+				gainPerSlot = gain;
+				growSize = i + 1;
+			}
+		}
+		double lossPerSlot = this.tailHits / lookups / this.adaptStep;
+		if (gainPerSlot >= GROW_GAIN_PER_SLOT && this.maxSize < this.adaptMaxSize) {
+			this.resize(Math.min(this.maxSize + growSize, this.adaptMaxSize));
+		} else if (lossPerSlot < SHRINK_LOSS_PER_SLOT && gainPerSlot < SHRINK_LOSS_PER_SLOT && this.maxSize > this.adaptMinSize) {
+			this.resize(Math.max(this.maxSize - this.adaptStep, this.adaptMinSize));
+		} else {
+			this.resetAdaptWindow();
+		}
+	}
+	/**
+	 * start a new window,sample keys of the least valuable entries(evicted
+	 * first when shrink)
+	 */
+	private void resetAdaptWindow() {
+		this.windowLookups = 0;
+		this.tailHits = 0;
+		this.adaptStep = Math.max(1, this.maxSize / 4);
+		this.ghostCapacity = Math.max(0, this.adaptMaxSize - this.maxSize);
+		if (this.ghostHits == null || this.ghostHits.length != this.ghostCapacity)
+			this.ghostHits = new int[this.ghostCapacity];
+		else
+			Arrays.fill(this.ghostHits, 0);
+		while (this.ghostMap.size() > this.ghostCapacity) {
+			Iterator<Object> itor = this.ghostMap.keySet().iterator();
+			itor.next();
+			itor.remove();
+		}
+		this.tailKeySet.clear();
+		int tailSize = this.adaptStep - (this.maxSize - this.size());
+		if (tailSize > 0) {
+			if (this.tinyLFUMap != null) {
+				this.tinyLFUMap.collectVictimKeys(tailSize, this.tailKeySet);
+			} else {
+				Iterator<Object> itor = this.cacheMap.keySet().iterator();
+				while (this.tailKeySet.size() < tailSize && itor.hasNext())
+					this.tailKeySet.add(itor.next());
+			}
+		}
 	}
 	public void putStatement(Object key, PreparedStatement value) {
-		if(maxSize>0){this.cacheMap.put(key, value);}
+		if (maxSize > 0) {
+			if (this.tinyLFUMap != null)
+				this.tinyLFUMap.put(key, value);
+			else
+				this.cacheMap.put(key, value);
+		}
 	}
 	public void clearAllStatement() {
+		if (this.tinyLFUMap != null) {
+			this.tinyLFUMap.clear(false);
+			return;
+		}
 		Iterator<Map.Entry<Object, PreparedStatement>> itor = this.cacheMap.entrySet().iterator();
 		while (itor.hasNext()) {
 			Map.Entry<Object, PreparedStatement> entry = (Map.Entry<Object, PreparedStatement>) itor.next();
@@ -66,6 +265,31 @@ public final class StatementCache {
 			this.onRemove(entry.getKey(), entry.getValue());
 		}
 	}
+	private void onEvict(Object key) {
+		this.evictionCount++;
+		if (this.ghostMap != null && this.ghostCapacity > 0)
+			this.ghostMap.put(key, Integer.valueOf(this.evictionSeq++));
+		if (this.metrics != null)
+			this.metrics.recordStatementEviction(getSql(key));
+	}
+	static String getSql(Object key) {
+		if (key instanceof String)
+			return (String) key;
+		else if (key instanceof StatementPsCacheKey)
+			return ((StatementPsCacheKey) key).getSql();
+		else if (key instanceof StatementCsCacheKey)
+			return ((StatementCsCacheKey) key).getSql();
+		else
+			return String.valueOf(key);
+	}
+	/**
+	 * statement removed from W-TinyLFU map
+	 */
+	void onRemoved(Object key, PreparedStatement obj, boolean evicted) {
+		if (evicted)
+			this.onEvict(key);
+		this.onRemove(key, obj);
+	}
 	void onRemove(Object key, PreparedStatement obj) {
 		try {
 			 ((PreparedStatement) obj).close();
@@ -45,6 +45,10 @@ public class StatementCsCacheKey{
 		return result;
 	}
 
+	public String getSql() {
+		return sql;
+	}
+
 	@Override
 	public int hashCode() {
 		return this.hashCode;
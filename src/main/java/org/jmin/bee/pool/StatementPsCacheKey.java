@@ -70,6 +70,10 @@ public class StatementPsCacheKey{
 		return result;
 	}
 	
+	public String getSql() {
+		return sql;
+	}
+
 	@Override
 	public int hashCode() {
 	  return this.hashCode;
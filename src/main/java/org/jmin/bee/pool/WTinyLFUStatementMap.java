@@ -0,0 +1,213 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+
+import org.jmin.bee.pool.util.FrequencySketch;
+
+/**
+ * Statement store of W-TinyLFU policy: new statements enter a small LRU
+ * window(1%,at least one),statements leaving window compete with LRU victim of main
+ * space by access frequency(Count-Min sketch),the less frequent one is
+ * evicted;main space is segmented LRU(probation 20%,protected 80%),a
+ * probation statement hit again is promoted to protected.
+ *
+ * A scan over many distinct SQL texts only churns window and probation,hot
+ * statements keep in protected.
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+final class WTinyLFUStatementMap {
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	private final StatementCache owner;
+	private final HashMap<Object, Node> nodeMap = new HashMap<Object, Node>();
+	private final Node window = new Node(null, null);
+	private final Node probation = new Node(null, null);
+	private final Node protect = new Node(null, null);
+	private FrequencySketch sketch;
+	private int sketchCapacity;
+
+	private int maxSize;
+	private int windowMax;
+	private int mainMax;
+	private int protectedMax;
+	private int windowSize;
+	private int probationSize;
+	private int protectedSize;
+
+	WTinyLFUStatementMap(StatementCache owner, int maxSize) {
+		this.owner = owner;
+		this.resize(maxSize);
+	}
+
+	int size() {
+		return this.nodeMap.size();
+	}
+
+	/**
+	 * every lookup is recorded in sketch,then hit statement is moved in its
+	 * segment(or promoted)
+	 */
+	PreparedStatement get(Object key) {
+		this.sketch.increment(key);
+		Node node = this.nodeMap.get(key);
+		if (node == null)
+			return null;
+
+		if (node.queue == PROBATION) {
+			unlink(node);
+			this.probationSize--;
+			node.queue = PROTECTED;
+			linkLast(this.protect, node);
+			this.protectedSize++;
+			this.evict();// protected may overflow
+		} else {
+			unlink(node);
+			linkLast(node.queue == WINDOW ? this.window : this.protect, node);
+		}
+		return node.value;
+	}
+
+	/**
+	 * put statement after a miss(lookup has been recorded)
+	 */
+	void put(Object key, PreparedStatement value) {
+		Node node = this.nodeMap.get(key);
+		if (node != null) {
+			node.value = value;
+			return;
+		}
+		node = new Node(key, value);
+		node.queue = WINDOW;
+		this.nodeMap.put(key, node);
+		linkLast(this.window, node);
+		this.windowSize++;
+		this.evict();
+	}
+
+	/**
+	 * change capacity,statements over new capacity are evicted
+	 */
+	void resize(int maxSize) {
+		this.maxSize = maxSize;
+		this.windowMax = maxSize > 0 ? Math.max(1, maxSize / 100) : 0;// new statement never be evicted in its put
+		this.mainMax = maxSize - this.windowMax;
+		this.protectedMax = this.mainMax * 4 / 5;
+		if (this.sketch == null || maxSize > this.sketchCapacity) {// keep history if large enough
+			this.sketchCapacity = Math.max(1, maxSize);
+			this.sketch = new FrequencySketch(this.sketchCapacity);
+		}
+		this.evict();
+	}
+
+	/**
+	 * collect keys in eviction order:probation,window,protected(all from LRU)
+	 */
+	void collectVictimKeys(int size, Collection<Object> keys) {
+		for (Node head : new Node[] { this.probation, this.window, this.protect }) {
+			for (Node node = head.next; node != head && keys.size() < size; node = node.next)
+				keys.add(node.key);
+		}
+	}
+
+	/**
+	 * remove all statements,each one is passed to owner
+	 */
+	void clear(boolean evicted) {
+		for (Node head : new Node[] { this.window, this.probation, this.protect }) {
+			Node node = head.next;
+			while (node != head) {
+				Node next = node.next;
+				this.owner.onRemoved(node.key, node.value, evicted);
+				node = next;
+			}
+			head.next = head.prev = head;
+		}
+		this.nodeMap.clear();
+		this.windowSize = this.probationSize = this.protectedSize = 0;
+	}
+
+	private void evict() {
+		while (this.windowSize > this.windowMax) {// window overflow enter probation as candidates
+			Node node = this.window.next;
+			unlink(node);
+			this.windowSize--;
+			node.queue = PROBATION;
+			linkLast(this.probation, node);
+			this.probationSize++;
+		}
+		while (this.protectedSize > this.protectedMax) {// demote
+			Node node = this.protect.next;
+			unlink(node);
+			this.protectedSize--;
+			node.queue = PROBATION;
+			linkLast(this.probation, node);
+			this.probationSize++;
+		}
+		while (this.probationSize + this.protectedSize > this.mainMax) {
+			Node victim = this.probation.next;
+			Node candidate = this.probation.prev;
+			if (victim == this.probation) {// probation empty,only when capacity shrink to zero
+				this.remove(this.protect.next);
+			} else if (victim == candidate || this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key)) {
+				this.remove(victim);
+			} else {
+				this.remove(candidate);
+			}
+		}
+	}
+
+	private void remove(Node node) {
+		unlink(node);
+		if (node.queue == WINDOW)
+			this.windowSize--;
+		else if (node.queue == PROBATION)
+			this.probationSize--;
+		else
+			this.protectedSize--;
+		this.nodeMap.remove(node.key);
+		this.owner.onRemoved(node.key, node.value, true);
+	}
+
+	private static void unlink(Node node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+	}
+
+	private static void linkLast(Node head, Node node) {
+		node.prev = head.prev;
+		node.next = head;
+		head.prev.next = node;
+		head.prev = node;
+	}
+
+	/**
+	 * node in circular linked list of a segment,head is a sentinel
+	 */
+	private static final class Node {
+		final Object key;
+		PreparedStatement value;
+		int queue;
+		Node prev = this;
+		Node next = this;
+
+		Node(Object key, PreparedStatement value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Lock-free waiter queue(Michael-Scott linked queue),offer returns the
+ * node of item,then waiter can cancel itself by clearing node item,
+ * cancelled nodes are unlinked by a sweep after cancel or when they reach
+ * queue head.
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+final class WaitQueue<E> {
+	private volatile Node<E> head;
+	private volatile Node<E> tail;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<WaitQueue, Node> headUpdater = AtomicReferenceFieldUpdater.newUpdater(WaitQueue.class, Node.class, "head");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<WaitQueue, Node> tailUpdater = AtomicReferenceFieldUpdater.newUpdater(WaitQueue.class, Node.class, "tail");
+
+	public WaitQueue() {
+		this.head = this.tail = new Node<E>(null);
+	}
+
+	/**
+	 * append item to queue tail
+	 *
+	 * @return node of item,used to cancel
+	 */
+	public Node<E> offer(E item) {
+		Node<E> node = new Node<E>(item);
+		while (true) {
+			Node<E> t = this.tail;
+			Node<E> next = t.next;
+			if (t == this.tail) {
+				if (next == null) {
+					if (t.casNext(null, node)) {
+						tailUpdater.compareAndSet(this, t, node);
+						return node;
+					}
+				} else {
+					tailUpdater.compareAndSet(this, t, next);
+				}
+			}
+		}
+	}
+
+	/**
+	 * take out first not cancelled item
+	 *
+	 * @return null if queue is empty
+	 */
+	public E poll() {
+		while (true) {
+			Node<E> h = this.head;
+			Node<E> first = h.next;
+			if (first == null)
+				return null;
+
+			E item = first.item;
+			if (item != null && first.casItem(item, null)) {
+				this.advanceHead(h, first);
+				return item;
+			}
+			this.advanceHead(h, first);
+		}
+	}
+
+	/**
+	 * @return true if not exists any not cancelled item
+	 */
+	public boolean isEmpty() {
+		while (true) {
+			Node<E> h = this.head;
+			Node<E> first = h.next;
+			if (first == null)
+				return true;
+			if (first.item != null)
+				return false;
+			this.advanceHead(h, first);
+		}
+	}
+
+	/**
+	 * cancel a node,then unlink cancelled nodes
+	 *
+	 * @return false if item has been taken out by other thread
+	 */
+	public boolean cancel(Node<E> node, E item) {
+		if (node.item != item || !node.casItem(item, null))
+			return false;
+		this.unlinkCancelled();
+		return true;
+	}
+
+	/**
+	 * @return count of linked nodes,cancelled ones not unlinked yet included
+	 */
+	int linkedSize() {
+		int size = 0;
+		for (Node<E> node = this.head.next; node != null; node = node.next)
+			size++;
+		return size;
+	}
+
+	/**
+	 * unlink cancelled nodes behind head by skipping them from predecessor,a
+	 * node of lost race stays linked until next sweep,tail node is never
+	 * unlinked(offer appends to it)
+	 */
+	private void unlinkCancelled() {
+		Node<E> pred = this.head;
+		Node<E> node = pred.next;
+		while (node != null) {
+			Node<E> next = node.next;
+			if (node.item == null && next != null)
+				pred.casNext(node, next);
+			else
+				pred = node;
+			node = next;
+		}
+	}
+
+	/**
+	 * first node becomes new head(sentinel),tail never falls behind head
+	 */
+	private void advanceHead(Node<E> h, Node<E> first) {
+		if (h == this.tail)
+			tailUpdater.compareAndSet(this, h, first);
+		headUpdater.compareAndSet(this, h, first);
+	}
+
+	static final class Node<E> {
+		private volatile E item;
+		private volatile Node<E> next;
+
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<Node, Object> itemUpdater = AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "item");
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<Node, Node> nextUpdater = AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+		Node(E item) {
+			this.item = item;
+		}
+
+		boolean casItem(E expect, E update) {
+			return itemUpdater.compareAndSet(this, expect, update);
+		}
+
+		boolean casNext(Node<E> expect, Node<E> update) {
+			return nextUpdater.compareAndSet(this, expect, update);
+		}
+	}
+}
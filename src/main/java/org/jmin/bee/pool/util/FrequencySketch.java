@@ -0,0 +1,88 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool.util;
+
+/**
+ * Count-Min sketch of access frequency(4 rows,counters saturate at 15),all
+ * counters are halved after a sample period,so old popularity fades out.
+ *
+ * not thread safe,used by one statement cache
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class FrequencySketch {
+	private static final int DEPTH = 4;
+	private static final int MAX_COUNT = 15;
+	private static final int[] SEEDS = { 0x97CB3127, 0xB3C1E6B5, 0x8E3C5B2D, 0xD2B74407 };
+
+	private final byte[] table;
+	private final int mask;
+	private final int width;
+	private final int samplePeriod;
+	private int additions;
+
+	/**
+	 * @param capacity size of cache using the sketch
+	 */
+	public FrequencySketch(int capacity) {
+		int size = 16;
+		while (size < capacity * 4)
+			size <<= 1;
+		this.width = size;
+		this.mask = size - 1;
+		this.table = new byte[size * DEPTH];
+		this.samplePeriod = Math.max(10 * capacity, 16);
+	}
+
+	public void increment(Object key) {
+		int hash = spread(key.hashCode());
+		boolean added = false;
+		for (int i = 0; i < DEPTH; i++) {
+			int index = this.indexOf(hash, i);
+			if (this.table[index] < MAX_COUNT) {
+				this.table[index]++;
+				added = true;
+			}
+		}
+		if (added && ++this.additions >= this.samplePeriod)
+			this.age();
+	}
+
+	/**
+	 * @return estimated access count of key(0-15)
+	 */
+	public int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int frequency = MAX_COUNT;
+		for (int i = 0; i < DEPTH; i++)
+			frequency = Math.min(frequency, this.table[this.indexOf(hash, i)]);
+		return frequency;
+	}
+
+	private int indexOf(int hash, int row) {
+		int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+		h ^= h >>> 16;
+		return row * this.width + (h & this.mask);
+	}
+
+	private void age() {
+		for (int i = 0; i < this.table.length; i++)
+			this.table[i] >>= 1;
+		this.additions >>= 1;
+	}
+
+	private static int spread(int hash) {
+		hash ^= hash >>> 17;
+		hash *= 0xED5AD4BB;
+		hash ^= hash >>> 11;
+		return hash;
+	}
+}
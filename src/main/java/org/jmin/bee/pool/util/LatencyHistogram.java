@@ -0,0 +1,132 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with log2 buckets of microseconds,striped by thread id
+ * like {@link StripedCounter},recording not allocate.
+ *
+ * bucket 0 holds 0-1,bucket i holds (2^(i-1),2^i] microseconds(upper bound
+ * inclusive,as 'le' of Prometheus),last bucket is overflow bucket holding
+ * all greater values,its upper bound is Long.MAX_VALUE(+Inf of Prometheus).
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+	public static final int BUCKET_SIZE = 40;// last finite bound 2^38 microseconds:about 3 days
+	private static final int SUM_INDEX = BUCKET_SIZE;
+	private static final int STRIPE_SIZE = 64;// buckets + sum + padding(23 longs,over two cache lines)
+	private final int mask;
+	private final AtomicLongArray cells;
+
+	public LatencyHistogram() {
+		int size = 1;
+		int processors = Runtime.getRuntime().availableProcessors();
+		while (size < processors)
+			size <<= 1;
+		this.mask = size - 1;
+		this.cells = new AtomicLongArray(size * STRIPE_SIZE);
+	}
+
+	/**
+	 * @param nanos elapsed nanoseconds
+	 */
+	public void record(long nanos) {
+		long micros = nanos < 0 ? 0 : nanos / 1000;
+		int stripe = ((int) Thread.currentThread().getId() & this.mask) * STRIPE_SIZE;
+		this.cells.getAndIncrement(stripe + bucketOf(micros));
+		this.cells.getAndAdd(stripe + SUM_INDEX, micros);
+	}
+
+	public static int bucketOf(long micros) {
+		if (micros <= 1)
+			return 0;
+		int bucket = 64 - Long.numberOfLeadingZeros(micros - 1);
+		return bucket < BUCKET_SIZE ? bucket : BUCKET_SIZE - 1;
+	}
+
+	/**
+	 * @return upper bound(inclusive) of bucket in microseconds,Long.MAX_VALUE
+	 *         for the overflow bucket
+	 */
+	public static long bucketUpperBound(int bucket) {
+		return bucket < BUCKET_SIZE - 1 ? 1L << bucket : Long.MAX_VALUE;
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKET_SIZE; i++)
+			count += this.getBucketCount(i);
+		return count;
+	}
+
+	/**
+	 * @return total microseconds of all records
+	 */
+	public long getSum() {
+		long sum = 0;
+		for (int i = 0; i <= this.mask; i++)
+			sum += this.cells.get(i * STRIPE_SIZE + SUM_INDEX);
+		return sum;
+	}
+
+	public long getMean() {
+		long count = this.getCount();
+		return count == 0 ? 0 : this.getSum() / count;
+	}
+
+	public long getBucketCount(int bucket) {
+		long count = 0;
+		for (int i = 0; i <= this.mask; i++)
+			count += this.cells.get(i * STRIPE_SIZE + bucket);
+		return count;
+	}
+
+	/**
+	 * @return count of each bucket
+	 */
+	public long[] getBuckets() {
+		long[] buckets = new long[BUCKET_SIZE];
+		for (int i = 0; i < BUCKET_SIZE; i++)
+			buckets[i] = this.getBucketCount(i);
+		return buckets;
+	}
+
+	/**
+	 * @param rate percentile rate,example:0.99
+	 * @return upper bound(microseconds) of the bucket containing percentile,
+	 *         zero if no record
+	 */
+	public long getPercentile(double rate) {
+		long[] buckets = this.getBuckets();
+		long count = 0;
+		for (long bucketCount : buckets)
+			count += bucketCount;
+		if (count == 0)
+			return 0;
+
+		long target = (long) Math.ceil(rate * count);
+		long accumulated = 0;
+		for (int i = 0; i < BUCKET_SIZE; i++) {
+			accumulated += buckets[i];
+			if (accumulated >= target)
+				return bucketUpperBound(i);
+		}
+		return bucketUpperBound(BUCKET_SIZE - 1);
+	}
+
+	public void reset() {
+		for (int i = 0; i < this.cells.length(); i++)
+			this.cells.set(i, 0);
+	}
+}
@@ -23,6 +23,7 @@ import org.jmin.bee.pool.ProxyCsStatement;
 import org.jmin.bee.pool.ProxyPsStatement;
 import org.jmin.bee.pool.ProxyResultSet;
 import org.jmin.bee.pool.ProxyStatement;
+import org.jmin.bee.pool.ProxyStatementWrapper;
 
 import javassist.ClassPool;
 import javassist.CtClass;
@@ -264,6 +265,20 @@ public final class ProxyClassUtil {
 			
 			if(methodName.equals("createStatement")){
 				methodBuffer.append("  return new ProxyStatementImpl(this.delegate.createStatement($$),this);");	
+			}else if(methodName.equals("prepareStatement") && ctMethod.getParameterTypes().length==1){
+				//prepareStatement(String):SQL text is cache key,no key object created on lookup
+				methodBuffer.append("StatementCache statementCache = this.getStatementCache();"); 
+				methodBuffer.append("boolean cacheAble = statementCache.isValid();"); 
+				methodBuffer.append("if(cacheAble){");
+				methodBuffer.append("   PreparedStatement statement=statementCache.getStatement($1);");
+				methodBuffer.append("   if(statement==null){");
+				methodBuffer.append("     statement=this.delegate.prepareStatement($1);");
+				methodBuffer.append("     statementCache.putStatement($1,statement);");
+				methodBuffer.append("   }");
+				methodBuffer.append("   return new ProxyPsStatementImpl(statement,this,cacheAble);");	
+				methodBuffer.append("}else{");
+				methodBuffer.append("   return new ProxyPsStatementImpl(this.delegate.prepareStatement($1),this,cacheAble);");	
+				methodBuffer.append("}");
 			}else if(methodName.equals("prepareStatement")){
 				methodBuffer.append("StatementCache statementCache = this.getStatementCache();"); 
 				methodBuffer.append("boolean cacheAble = statementCache.isValid();"); 
@@ -332,6 +347,8 @@ public final class ProxyClassUtil {
 			methodBuffer.delete(0, methodBuffer.length());
 			methodBuffer.append("{");
 			methodBuffer.append("this.updateLastActivityTime();");
+			if (methodName.startsWith("execute") || isRawAccessMethod(methodName))
+				methodBuffer.append("this.markTransactionDirty();");
 			if (methodName.equals("executeQuery")) {
 				methodBuffer.append(" return new ProxyResultSetImpl(this.delegate.executeQuery($$),this);");
 			}else if (methodName.equals("close")){
@@ -376,16 +393,15 @@ public final class ProxyClassUtil {
 			methodBuffer.append("{");
 			methodBuffer.append("this.updateLastActivityTime();");
 			methodBuffer.append("PreparedStatement delegate=(PreparedStatement)this.delegate;");
+			if (methodName.startsWith("execute") || isRawAccessMethod(methodName))
+				methodBuffer.append("this.markTransactionDirty();");
 			
 			if(methodName.equals("executeQuery")){
 			  methodBuffer.append(" return new ProxyResultSetImpl(delegate.executeQuery($$),this);");		
 			}else if (methodName.equals("close")) {
 				methodBuffer.append("super."+methodName + "($$);");
 			}else{
-				if(newCtMethodm.getReturnType() == CtClass.voidType)
-					methodBuffer.append(" delegate." + methodName + "($$);");
-				else
-					methodBuffer.append(" return delegate." + methodName + "($$);");
+				appendDirtyTrackingCall(ctMethod,newCtMethodm,methodBuffer);
 			}
 			methodBuffer.append("}");
 			
@@ -420,16 +436,15 @@ public final class ProxyClassUtil {
 			methodBuffer.append("{");
 			methodBuffer.append("this.updateLastActivityTime();");
 			methodBuffer.append("CallableStatement delegate=(CallableStatement)this.delegate;");
+			if (methodName.startsWith("execute") || isRawAccessMethod(methodName))
+				methodBuffer.append("this.markTransactionDirty();");
 			
 			if(methodName.equals("getResultSet")){
 				methodBuffer.append(" return new ProxyResultSetImpl(delegate.getResultSet($$),this);");		
 			}else if (methodName.equals("close")) {
 				methodBuffer.append("super."+methodName + "($$);");
 			} else {
-				if(newCtMethodm.getReturnType() == CtClass.voidType)
-					methodBuffer.append(" delegate." + methodName + "($$);");
-				else
-					methodBuffer.append(" return delegate." + methodName + "($$);");
+				appendDirtyTrackingCall(ctMethod,newCtMethodm,methodBuffer);
 			}
 			methodBuffer.append("}");
 			
@@ -463,6 +478,8 @@ public final class ProxyClassUtil {
 			methodBuffer.delete(0, methodBuffer.length());
 			methodBuffer.append("{");
 			methodBuffer.append("this.updateLastActivityTime();");
+			if (methodName.equals("updateRow") || methodName.equals("insertRow") || methodName.equals("deleteRow") || isRawAccessMethod(methodName))
+				methodBuffer.append("this.markTransactionDirty();");
 			if (methodName.equals("close")) {
 				methodBuffer.append("super." + methodName + "($$);");
 			} else {
@@ -478,6 +495,71 @@ public final class ProxyClassUtil {
 		return ctResultSetIntfProxyClass.toClass();
 	}
 	
+	/**
+	 * append delegate call of a cached statement method,mark dirty flags for
+	 * methods changing statement state(parameters,batch,properties),which are
+	 * restored when statement proxy closed
+	 */
+	private void appendDirtyTrackingCall(CtMethod ctMethod,CtMethod newCtMethodm,StringBuffer methodBuffer)throws Exception{
+		String methodName = ctMethod.getName();
+		String declaringClassName = ctMethod.getDeclaringClass().getName();
+		boolean isVoid = newCtMethodm.getReturnType() == CtClass.voidType;
+		int propertyFlag = getPropertyDirtyFlag(methodName);
+		
+		if(propertyFlag>0){
+			methodBuffer.append("this.saveProperty(" + propertyFlag + ");");
+		}else if(methodName.equals("addBatch")){
+			methodBuffer.append("this.markDirty(" + ProxyStatementWrapper.DIRTY_BATCH + ");");
+		}else if(methodName.equals("registerOutParameter") || (methodName.startsWith("set") && 
+				(declaringClassName.equals(PreparedStatement.class.getName())||declaringClassName.equals(CallableStatement.class.getName())))){
+			methodBuffer.append("this.markDirty(" + ProxyStatementWrapper.DIRTY_PARAMETERS + ");");
+		}
+		
+		int clearFlag = 0;
+		if(methodName.equals("clearParameters"))
+			clearFlag = ProxyStatementWrapper.DIRTY_PARAMETERS;
+		else if(methodName.equals("clearBatch") || methodName.equals("executeBatch"))
+			clearFlag = ProxyStatementWrapper.DIRTY_BATCH;
+		
+		if(clearFlag>0 && isVoid){
+			methodBuffer.append(" delegate." + methodName + "($$);");
+			methodBuffer.append("this.clearDirty(" + clearFlag + ");");
+		}else if(clearFlag>0){
+			methodBuffer.append(" " + newCtMethodm.getReturnType().getName() + " result=delegate." + methodName + "($$);");
+			methodBuffer.append("this.clearDirty(" + clearFlag + ");");
+			methodBuffer.append(" return result;");
+		}else if(isVoid){
+			methodBuffer.append(" delegate." + methodName + "($$);");
+		}else{
+			methodBuffer.append(" return delegate." + methodName + "($$);");
+		}
+	}
+	
+	/**
+	 * methods returning raw driver objects,work through them is not tracked,so
+	 * treated as dirtying transaction
+	 */
+	private boolean isRawAccessMethod(String methodName){
+		return methodName.equals("unwrap") || methodName.equals("getConnection") || methodName.equals("getStatement");
+	}
+	
+	private int getPropertyDirtyFlag(String methodName){
+		if(methodName.equals("setMaxRows"))
+			return ProxyStatementWrapper.DIRTY_MAX_ROWS;
+		else if(methodName.equals("setFetchSize"))
+			return ProxyStatementWrapper.DIRTY_FETCH_SIZE;
+		else if(methodName.equals("setQueryTimeout"))
+			return ProxyStatementWrapper.DIRTY_QUERY_TIMEOUT;
+		else if(methodName.equals("setMaxFieldSize"))
+			return ProxyStatementWrapper.DIRTY_MAX_FIELD_SIZE;
+		else if(methodName.equals("setFetchDirection"))
+			return ProxyStatementWrapper.DIRTY_FETCH_DIRECTION;
+		else if(methodName.equals("setPoolable"))
+			return ProxyStatementWrapper.DIRTY_POOLABLE;
+		else
+			return 0;
+	}
+	
 	private void resolveInterfaceMethods(CtClass interfaceClass,LinkedList linkedList,HashSet exitSignatureSet)throws Exception{
 		CtMethod[] ctMethods = interfaceClass.getDeclaredMethods();
 		for(int i=0;i<ctMethods.length;i++){
@@ -0,0 +1,55 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter striped by thread id,threads update different cells(padded to
+ * different cache lines),sum of all cells is the count.
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class StripedCounter {
+	private static final int PADDING = 16;// 16 longs:two cache lines
+	private final int mask;
+	private final AtomicLongArray cells;
+
+	public StripedCounter() {
+		int size = 1;
+		int processors = Runtime.getRuntime().availableProcessors();
+		while (size < processors)
+			size <<= 1;
+		this.mask = size - 1;
+		this.cells = new AtomicLongArray((size + 1) * PADDING);
+	}
+
+	public void increment() {
+		this.add(1);
+	}
+
+	public void add(long value) {
+		int index = ((int) Thread.currentThread().getId() & this.mask) + 1;
+		this.cells.getAndAdd(index * PADDING, value);
+	}
+
+	public long sum() {
+		long sum = 0;
+		for (int i = 0; i <= this.mask; i++)
+			sum += this.cells.get((i + 1) * PADDING);
+		return sum;
+	}
+
+	public void reset() {
+		for (int i = 0; i <= this.mask; i++)
+			this.cells.set((i + 1) * PADDING, 0);
+	}
+}
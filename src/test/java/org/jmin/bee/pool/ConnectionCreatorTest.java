@@ -0,0 +1,72 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * connections created in background only for demand,create-ahead runs only
+ * when triggered by a borrower creating a connection itself
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class ConnectionCreatorTest {
+	private static final int AHEAD_SIZE = 3;
+
+	@Before
+	public void setUp() {
+		StubDriver.reset();
+	}
+
+	@After
+	public void tearDown() {
+		StubDriver.reset();
+	}
+
+	@Test
+	public void testRequestCreateNotAhead() throws Exception {
+		BeeDataSourceConfig config = StubDriver.createConfig(ConnectionPool.class.getName(), 10);
+		config.setAsyncCreateConnection(true);
+		config.setConnectionCreateAheadSize(AHEAD_SIZE);
+		BeeDataSource dataSource = new BeeDataSource(config);
+		Connection con = dataSource.getConnection();
+		try {
+			Thread.sleep(200);// creator would have created ahead
+			assertEquals(1, StubDriver.openCount.get());
+		} finally {
+			con.close();
+			dataSource.close();
+		}
+	}
+
+	@Test
+	public void testCreateAhead() throws Exception {
+		BeeDataSourceConfig config = StubDriver.createConfig(ConnectionPool.class.getName(), 10);
+		config.setConnectionCreateAheadSize(AHEAD_SIZE);
+		BeeDataSource dataSource = new BeeDataSource(config);
+		Connection con = dataSource.getConnection();
+		try {
+			Thread.sleep(200);
+			assertEquals(1 + AHEAD_SIZE, StubDriver.openCount.get());
+		} finally {
+			con.close();
+			dataSource.close();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * destroy pool while a connection is being created,the connection must be
+ * closed when its connect returns
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class PoolDestroyTest {
+	private static final long CONNECT_DELAY = 500;
+
+	@Before
+	public void setUp() {
+		StubDriver.reset();
+		StubDriver.connectDelay = CONNECT_DELAY;
+	}
+
+	@After
+	public void tearDown() {
+		StubDriver.reset();
+	}
+
+	@Test
+	public void testDestroyDuringBackgroundCreate() throws Exception {
+		BeeDataSourceConfig config = StubDriver.createConfig(ConnectionPool.class.getName(), 4);
+		config.setPoolMinIdle(1);// creator starts a connect at once
+		BeeDataSource dataSource = new BeeDataSource(config);
+		waitConnecting();
+		dataSource.close();
+		waitConnectFinished();
+		assertEquals(0, StubDriver.openCount.get());
+	}
+
+	@Test
+	public void testDestroyDuringBorrowerCreate() throws Exception {
+		BeeDataSourceConfig config = StubDriver.createConfig(ConnectionPool.class.getName(), 4);
+		config.setBorrowerMaxWaitTime(1000);
+		final BeeDataSource dataSource = new BeeDataSource(config);
+		Thread borrower = new Thread() {
+			public void run() {
+				try {
+					dataSource.getConnection().close();
+				} catch (SQLException e) {
+				}
+			}
+		};
+		borrower.start();
+		waitConnecting();
+		dataSource.close();
+		borrower.join();
+		waitConnectFinished();
+		assertEquals(0, StubDriver.openCount.get());
+	}
+
+	private static void waitConnecting() throws InterruptedException {
+		while (StubDriver.connectingCount.get() == 0)
+			Thread.sleep(1);
+	}
+
+	private static void waitConnectFinished() throws InterruptedException {
+		while (StubDriver.connectingCount.get() > 0)
+			Thread.sleep(1);
+		Thread.sleep(100);// creator closes connection after connect returned
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * tracked SQL texts stay bounded,a frequent text is not replaced by rare ones
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class PoolMetricsTest {
+	private static final String FREQUENT_SQL = "select * from frequent";
+	private static final int FREQUENT_COUNT = 100;
+
+	@Test
+	public void testFrequentSQLKept() {
+		PoolMetrics metrics = new PoolMetrics();
+		for (int i = 0; i < FREQUENT_COUNT; i++)
+			metrics.recordStatementMiss(FREQUENT_SQL);
+		for (int i = 0; i < PoolMetrics.MAX_TRACKED_SQL_SIZE * 5; i++)
+			metrics.recordStatementMiss("select * from rare" + i);
+
+		Map<String, Long> topMap = metrics.getTopSQL(1, false);
+		assertTrue(topMap.get(FREQUENT_SQL) >= FREQUENT_COUNT);
+		assertTrue(metrics.getTopSQL(Integer.MAX_VALUE, false).size() <= PoolMetrics.MAX_TRACKED_SQL_SIZE);
+	}
+
+	@Test
+	public void testConcurrentReplace() throws Exception {
+		final PoolMetrics metrics = new PoolMetrics();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t * PoolMetrics.MAX_TRACKED_SQL_SIZE * 2;
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < PoolMetrics.MAX_TRACKED_SQL_SIZE * 2; i++)
+						metrics.recordStatementEviction("select * from t" + (offset + i));
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		assertEquals(PoolMetrics.MAX_TRACKED_SQL_SIZE, metrics.getTopSQL(Integer.MAX_VALUE, true).size());
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.jmin.bee.BeeDataSourceConfig;
+
+/**
+ * JDBC driver of stub connections for pool tests(no database),counts open
+ * connections,connect delay not interrupted(like a socket connect)
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public final class StubDriver implements Driver {
+	public static final String URL = "jdbc:stub";
+	public static final AtomicInteger openCount = new AtomicInteger();
+	public static final AtomicInteger connectingCount = new AtomicInteger();
+	public static volatile long connectDelay;
+
+	static {
+		try {
+			DriverManager.registerDriver(new StubDriver());
+		} catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public static BeeDataSourceConfig createConfig(String poolClassName, int poolMaxSize) {
+		BeeDataSourceConfig config = new BeeDataSourceConfig(StubDriver.class.getName(), URL, "user", "password");
+		config.setConnectionPoolClassName(poolClassName);
+		config.setPoolInitSize(0);
+		config.setPoolMaxSize(poolMaxSize);
+		return config;
+	}
+
+	public static void reset() {
+		openCount.set(0);
+		connectingCount.set(0);
+		connectDelay = 0;
+	}
+
+	public Connection connect(String url, Properties info) {
+		if (!this.acceptsURL(url))
+			return null;
+
+		connectingCount.incrementAndGet();
+		try {
+			long deadline = System.currentTimeMillis() + connectDelay;
+			long waitTime;
+			while ((waitTime = deadline - System.currentTimeMillis()) > 0) {
+				try {
+					Thread.sleep(waitTime);
+				} catch (InterruptedException e) {
+				}
+			}
+			openCount.incrementAndGet();
+			return (Connection) stub(Connection.class);
+		} finally {
+			connectingCount.decrementAndGet();
+		}
+	}
+
+	private static Object stub(final Class<?> type) {
+		return Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class[] { type }, new InvocationHandler() {
+			private boolean closed;
+
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("hashCode"))
+					return System.identityHashCode(proxy);
+				if (name.equals("equals"))
+					return proxy == args[0];
+				if (name.equals("close")) {
+					if (type == Connection.class && !this.closed)
+						openCount.decrementAndGet();
+					this.closed = true;
+					return null;
+				}
+				if (name.equals("isClosed"))
+					return this.closed;
+
+				Class<?> returnType = method.getReturnType();
+				if (returnType == boolean.class)
+					return name.equals("isValid") || name.equals("getAutoCommit");
+				if (returnType == int.class)
+					return 0;
+				if (returnType == long.class)
+					return 0L;
+				if (returnType.isInterface() && returnType.getName().startsWith("java.sql."))
+					return stub(returnType);
+				return null;
+			}
+		});
+	}
+
+	public boolean acceptsURL(String url) {
+		return url != null && url.startsWith(URL);
+	}
+
+	public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+		return new DriverPropertyInfo[0];
+	}
+
+	public int getMajorVersion() {
+		return 1;
+	}
+
+	public int getMinorVersion() {
+		return 0;
+	}
+
+	public boolean jdbcCompliant() {
+		return false;
+	}
+
+	public Logger getParentLogger() {
+		return null;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * cancelled interior waiters are unlinked,queue keeps live waiters in order
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class WaitQueueTest {
+	private static final int SIZE = 10;
+
+	@Test
+	public void testCancelInteriorWaiters() {
+		WaitQueue<Integer> queue = new WaitQueue<Integer>();
+		List<WaitQueue.Node<Integer>> nodeList = new ArrayList<WaitQueue.Node<Integer>>();
+		for (int i = 0; i < SIZE; i++)
+			nodeList.add(queue.offer(Integer.valueOf(i)));
+
+		for (int i = 2; i < SIZE - 2; i++)
+			assertTrue(queue.cancel(nodeList.get(i), Integer.valueOf(i)));
+		assertEquals(4, queue.linkedSize());
+
+		assertEquals(Integer.valueOf(0), queue.poll());
+		assertEquals(Integer.valueOf(1), queue.poll());
+		assertEquals(Integer.valueOf(SIZE - 2), queue.poll());
+		assertEquals(Integer.valueOf(SIZE - 1), queue.poll());
+		assertNull(queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testCancelTakenWaiter() {
+		WaitQueue<Integer> queue = new WaitQueue<Integer>();
+		Integer item = Integer.valueOf(1);
+		WaitQueue.Node<Integer> node = queue.offer(item);
+		assertEquals(item, queue.poll());
+		assertFalse(queue.cancel(node, item));
+	}
+
+	@Test
+	public void testConcurrentCancel() throws Exception {
+		final WaitQueue<Object> queue = new WaitQueue<Object>();
+		final Object liveItem = new Object();
+		queue.offer(liveItem);
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						Object item = new Object();
+						queue.cancel(queue.offer(item), item);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+
+		queue.offer(new Object());// tail node,then a last sweep unlinks all cancelled
+		Object item = new Object();
+		queue.cancel(queue.offer(item), item);
+		assertEquals(3, queue.linkedSize());
+		assertEquals(liveItem, queue.poll());
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright Chris Liao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ */
+package org.jmin.bee.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jmin.bee.BeeDataSource;
+import org.jmin.bee.BeeDataSourceConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * waiting borrowers gauge counts blocked and async waiters of both pool
+ * implementations
+ *
+ * @author Chris.Liao
+ * @version 1.0
+ */
+public class WaitingBorrowersTest {
+	private static final long WAIT_TIME = 5000;
+
+	@Before
+	public void setUp() {
+		StubDriver.reset();
+	}
+
+	@After
+	public void tearDown() {
+		StubDriver.reset();
+	}
+
+	@Test
+	public void testBlockedBorrower() throws Exception {
+		testBlockedBorrower(ConnectionPool.class.getName());
+	}
+
+	@Test
+	public void testBlockedBorrowerFairMode() throws Exception {
+		testBlockedBorrower(ConnectionPool2.class.getName());
+	}
+
+	@Test
+	public void testAsyncBorrower() throws Exception {
+		testAsyncBorrower(ConnectionPool.class.getName());
+	}
+
+	@Test
+	public void testAsyncBorrowerFairMode() throws Exception {
+		testAsyncBorrower(ConnectionPool2.class.getName());
+	}
+
+	private static void testBlockedBorrower(String poolClassName) throws Exception {
+		BeeDataSourceConfig config = StubDriver.createConfig(poolClassName, 1);
+		config.setBorrowerMaxWaitTime(WAIT_TIME);
+		final BeeDataSource dataSource = new BeeDataSource(config);
+		Connection con = dataSource.getConnection();
+		Thread borrower = new Thread() {
+			public void run() {
+				try {
+					dataSource.getConnection().close();
+				} catch (SQLException e) {
+				}
+			}
+		};
+		try {
+			borrower.start();
+			waitBorrowers(dataSource, 1);
+			assertEquals(Integer.valueOf(1), dataSource.getPoolSnapshot().get("WaiterSize"));
+		} finally {
+			con.close();
+			borrower.join();
+		}
+		try {
+			assertEquals(0, dataSource.getPoolMXBean().getWaitingBorrowers());
+		} finally {
+			dataSource.close();
+		}
+	}
+
+	private static void testAsyncBorrower(String poolClassName) throws Exception {
+		BeeDataSource dataSource = new BeeDataSource(StubDriver.createConfig(poolClassName, 1));
+		Connection con = dataSource.getConnection();
+		CompletableFuture<Connection> future = dataSource.getConnectionAsync(WAIT_TIME);
+		try {
+			assertEquals(1, dataSource.getPoolMXBean().getWaitingBorrowers());
+		} finally {
+			con.close();
+		}
+		try {
+			future.get(WAIT_TIME, TimeUnit.MILLISECONDS).close();
+			assertEquals(0, dataSource.getPoolMXBean().getWaitingBorrowers());
+		} finally {
+			dataSource.close();
+		}
+	}
+
+	private static void waitBorrowers(BeeDataSource dataSource, int size) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + WAIT_TIME;
+		while (dataSource.getPoolMXBean().getWaitingBorrowers() < size && System.currentTimeMillis() < deadline)
+			Thread.sleep(1);
+		assertTrue(dataSource.getPoolMXBean().getWaitingBorrowers() >= size);
+	}
+}